@@ -0,0 +1,388 @@
+package org.distributed.shardingjh.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.distributed.shardingjh.common.response.BatchMerger;
+import org.distributed.shardingjh.common.response.MgrResponseCode;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.controller.usercontroller.MemberBatchRequest;
+import org.distributed.shardingjh.controller.usercontroller.MemberIdsRequest;
+import org.distributed.shardingjh.controller.usercontroller.OrderBatchRequest;
+import org.distributed.shardingjh.model.Member;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.p2p.RingHash;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.util.EncryptUtil;
+import org.distributed.shardingjh.util.SignatureUtil;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Java client for ShardingJH with ring-aware routing.
+ * It caches the finger table of /api/gossip/finger-table and sends every request straight to the owner
+ * of the id, with the same hash as ServerRouter (RingHash.ownerOf), so no node has to forward it.
+ * <p>
+ * - Signatures (X-Signature) are computed by the client: canonical JSON for bodies, the path and query otherwise
+ * - Every response carries X-Finger-Version; when it differs from the cached ring, the ring is fetched again
+ *   (If-None-Match, a 304 costs nothing). A 307 from a node in redirect mode does the same and the request is resent
+ *   once to the owner.
+ * - One pool of kept-alive connections per node, requests are non-blocking: many requests can be in flight
+ *   on the same node without a thread each.
+ * - Batch calls group the items by owner and send one sub-batch request per owner (split above MAX_BATCH_SIZE),
+ *   all at the same time.
+ * <p>
+ * Thread-safe, create one per application and close it on shutdown.
+ *
+ * @author chris
+ * */
+@Slf4j
+public class ShardingJhClient implements Closeable {
+
+    public static final String SIGNATURE_HEADER = "X-Signature";
+
+    public static final String FINGER_VERSION_HEADER = "X-Finger-Version";
+
+    private static final String FINGER_TABLE_PATH = "/api/gossip/finger-table";
+
+    private static final long REFRESH_TIMEOUT_MS = 5000;
+
+    // items per sub-batch request, larger groups are split
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final List<String> seedUrls;
+
+    private final String secretKey;
+
+    private final ObjectMapper objectMapper;
+
+    private final CloseableHttpAsyncClient httpClient;
+
+    // ring and its version are replaced together
+    private volatile Ring ring = new Ring(new TreeMap<>(), null);
+
+    // at most one refresh in flight
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private record Ring(NavigableMap<Integer, String> finger, String version) {}
+
+    public ShardingJhClient(List<String> seedUrls, String secretKey) {
+        this(seedUrls, secretKey, defaultObjectMapper(), 32);
+    }
+
+    /**
+     * @param seedUrls nodes asked for the finger table, any node of the ring will do
+     * @param maxPerNode pooled connections per node
+     * */
+    public ShardingJhClient(List<String> seedUrls, String secretKey, ObjectMapper objectMapper, int maxPerNode) {
+        if (seedUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one seed node is needed");
+        }
+        this.seedUrls = List.copyOf(seedUrls);
+        this.secretKey = secretKey;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(maxPerNode)
+                        .setMaxConnTotal(maxPerNode * 8)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofSeconds(2))
+                                .setSocketTimeout(Timeout.ofSeconds(5))
+                                .build())
+                        .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1).build())
+                        .build())
+                // a 307 is handled here: refresh the ring, then resend
+                .disableRedirectHandling()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        this.httpClient.start();
+        refreshRing();
+    }
+
+    private static ObjectMapper defaultObjectMapper() {
+        // same settings as JacksonConfig on the server
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    /**
+     * Fetch the finger table from the first seed (or known node) that answers.
+     * Sends the cached version as If-None-Match, an unchanged ring is a 304 without body.
+     * */
+    public void refreshRing() {
+        Ring current = ring;
+        Set<String> nodes = new LinkedHashSet<>(current.finger().values());
+        nodes.addAll(seedUrls);
+        for (String node : nodes) {
+            SimpleRequestBuilder builder = SimpleRequestBuilder.get(node + FINGER_TABLE_PATH);
+            if (current.version() != null) {
+                builder.setHeader("If-None-Match", "\"" + current.version() + "\"");
+            }
+            try {
+                SimpleHttpResponse response = execute(builder.build())
+                        .get(REFRESH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    return;
+                }
+                if (response.getCode() == HttpStatus.SC_OK) {
+                    ring = readRing(response);
+                    log.info("[Client] Finger table version {}: {}", ring.version(), ring.finger());
+                    return;
+                }
+                log.warn("[Client] {} answered {} for the finger table", node, response.getCode());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching the finger table", e);
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("[Client] Failed to fetch the finger table from {}: {}", node, e.getMessage());
+            }
+        }
+        if (current.finger().isEmpty()) {
+            throw new IllegalStateException("No node answered with a finger table: " + nodes);
+        }
+    }
+
+    private Ring readRing(SimpleHttpResponse response) {
+        try {
+            JsonNode body = objectMapper.readTree(response.getBodyBytes());
+            NavigableMap<Integer, String> finger = new TreeMap<>();
+            body.get("fingerTable").fields()
+                    .forEachRemaining(entry -> finger.put(Integer.parseInt(entry.getKey()), entry.getValue().asText()));
+            return new Ring(Collections.unmodifiableNavigableMap(finger), body.get("version").asText());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Node owning a member id or an order id
+     * */
+    public String ownerOf(String id) {
+        return RingHash.ownerOf(ring.finger(), id);
+    }
+
+    public String ringVersion() {
+        return ring.version();
+    }
+
+    public CompletableFuture<MgrResponseDto<Member>> saveMember(Member member) {
+        return post(member.getId(), "/user/save", member, Member.class);
+    }
+
+    public CompletableFuture<MgrResponseDto<Member>> updateMember(Member member) {
+        return post(member.getId(), "/user/update", member, Member.class);
+    }
+
+    public CompletableFuture<MgrResponseDto<Member>> getMember(String id) {
+        return get(id, "/user/get/" + id, Member.class);
+    }
+
+    public CompletableFuture<MgrResponseDto<String>> deleteMember(String id) {
+        String path = "/user/delete/" + id;
+        SimpleHttpRequest request = SimpleRequestBuilder.delete(ownerOf(id) + path)
+                .setHeader(SIGNATURE_HEADER, EncryptUtil.hmacSha256(path, secretKey))
+                .build();
+        return send(request, objectMapper.getTypeFactory().constructParametricType(MgrResponseDto.class, String.class));
+    }
+
+    /**
+     * Orders without an orderId get one here, it is needed to find the owner
+     * */
+    public CompletableFuture<MgrResponseDto<OrderTable>> saveOrder(RequestOrder requestOrder) {
+        if (requestOrder.getOrderId() == null) {
+            requestOrder.generateOrderId();
+        }
+        return post(requestOrder.getOrderId(), "/order/save", requestOrder, OrderTable.class);
+    }
+
+    public CompletableFuture<MgrResponseDto<OrderTable>> getOrder(String orderId) {
+        return get(orderId, "/order/getOne?orderId=" + orderId, OrderTable.class);
+    }
+
+    /**
+     * Get many members: the ids are grouped by owner, every owner gets its sub-batches (/user/getBatch)
+     * at the same time. Ids that are not found are left out, an owner that fails makes the result partial
+     * */
+    public CompletableFuture<MgrResponseDto<List<Member>>> getMembers(Collection<String> ids) {
+        return batch(ids, Function.identity(), "/user/getBatch", chunk -> {
+            MemberIdsRequest body = new MemberIdsRequest();
+            body.setIds(chunk);
+            return body;
+        }, Member.class);
+    }
+
+    /**
+     * Save many members: grouped by owner, every owner gets its sub-batches (/user/saveBatch) at the same time
+     * */
+    public CompletableFuture<MgrResponseDto<List<Member>>> saveMembers(Collection<Member> members) {
+        return batch(members, Member::getId, "/user/saveBatch", chunk -> {
+            MemberBatchRequest body = new MemberBatchRequest();
+            body.setMembers(chunk);
+            return body;
+        }, Member.class);
+    }
+
+    /**
+     * Save many orders: grouped by owner, every owner gets its sub-batches (/order/saveBatch) at the same time.
+     * Orders without an orderId get one here
+     * */
+    public CompletableFuture<MgrResponseDto<List<OrderTable>>> saveOrders(Collection<RequestOrder> requestOrders) {
+        for (RequestOrder requestOrder : requestOrders) {
+            if (requestOrder.getOrderId() == null) {
+                requestOrder.generateOrderId();
+            }
+        }
+        return batch(requestOrders, RequestOrder::getOrderId, "/order/saveBatch", chunk -> {
+            OrderBatchRequest body = new OrderBatchRequest();
+            body.setOrders(chunk);
+            return body;
+        }, OrderTable.class);
+    }
+
+    /**
+     * Group the items by owner and split every group into sub-batches of at most MAX_BATCH_SIZE
+     * */
+    private <I, T> CompletableFuture<MgrResponseDto<List<T>>> batch(Collection<I> items, Function<I, String> idOf, String path,
+                                                                   Function<List<I>, Object> toBody, Class<T> itemType) {
+        JavaType type = objectMapper.getTypeFactory().constructParametricType(MgrResponseDto.class,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, itemType));
+        Map<String, List<I>> byOwner = new LinkedHashMap<>();
+        for (I item : items) {
+            byOwner.computeIfAbsent(ownerOf(idOf.apply(item)), k -> new ArrayList<>()).add(item);
+        }
+        Map<String, CompletableFuture<MgrResponseDto<List<T>>>> subBatches = new LinkedHashMap<>();
+        byOwner.forEach((owner, group) -> {
+            for (int from = 0; from < group.size(); from += MAX_BATCH_SIZE) {
+                List<I> chunk = group.subList(from, Math.min(from + MAX_BATCH_SIZE, group.size()));
+                subBatches.put(owner + "#" + from / MAX_BATCH_SIZE, postTo(owner, path, toBody.apply(chunk), type));
+            }
+        });
+        return BatchMerger.merge(List.of(), subBatches);
+    }
+
+    private <T> CompletableFuture<MgrResponseDto<T>> post(String id, String path, Object body, Class<T> dataType) {
+        return postTo(ownerOf(id), path, body, objectMapper.getTypeFactory().constructParametricType(MgrResponseDto.class, dataType));
+    }
+
+    private <T> CompletableFuture<MgrResponseDto<T>> postTo(String nodeUrl, String path, Object body, JavaType type) {
+        try {
+            String signature = EncryptUtil.hmacSha256(SignatureUtil.toCanonicalJson(body, objectMapper), secretKey);
+            SimpleHttpRequest request = SimpleRequestBuilder.post(nodeUrl + path)
+                    .setHeader(SIGNATURE_HEADER, signature)
+                    .setBody(objectMapper.writeValueAsString(body), ContentType.APPLICATION_JSON)
+                    .build();
+            return send(request, type);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.JSON_PARSE_ERROR));
+        }
+    }
+
+    private <T> CompletableFuture<MgrResponseDto<T>> get(String id, String pathWithQuery, Class<T> dataType) {
+        SimpleHttpRequest request = SimpleRequestBuilder.get(ownerOf(id) + pathWithQuery)
+                .setHeader(SIGNATURE_HEADER, EncryptUtil.hmacSha256(pathWithQuery, secretKey))
+                .build();
+        return send(request, objectMapper.getTypeFactory().constructParametricType(MgrResponseDto.class, dataType));
+    }
+
+    /**
+     * Send, follow one 307 to the owner, and refresh the ring when the node has another version
+     * */
+    private <T> CompletableFuture<MgrResponseDto<T>> send(SimpleHttpRequest request, JavaType type) {
+        return execute(request).thenCompose(response -> {
+            checkVersion(response);
+            if (response.getCode() == HttpStatus.SC_TEMPORARY_REDIRECT) {
+                Header location = response.getFirstHeader("Location");
+                log.info("[Client] Ring changed, {} moved to {}", request.getRequestUri(), location.getValue());
+                SimpleHttpRequest moved = SimpleRequestBuilder.copy(request).setUri(location.getValue()).build();
+                return execute(moved);
+            }
+            return CompletableFuture.completedFuture(response);
+        }).thenApply(response -> {
+            if (response.getCode() >= 400) {
+                throw new RestClientResponseException(
+                        request.getMethod() + " " + request.getRequestUri() + " returned " + response.getCode(),
+                        response.getCode(), response.getReasonPhrase(), null, response.getBodyBytes(), null);
+            }
+            try {
+                return objectMapper.readValue(response.getBodyBytes(), type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void checkVersion(SimpleHttpResponse response) {
+        Header version = response.getFirstHeader(FINGER_VERSION_HEADER);
+        if (version == null || version.getValue().equals(ring.version())) {
+            return;
+        }
+        // off the I/O thread, the refresh waits for a response
+        if (refreshing.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    refreshRing();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<SimpleHttpResponse> execute(SimpleHttpRequest request) {
+        CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<>();
+        httpClient.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+}
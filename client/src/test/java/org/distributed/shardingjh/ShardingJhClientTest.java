@@ -0,0 +1,188 @@
+package org.distributed.shardingjh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.client.ShardingJhClient;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.controller.usercontroller.MemberIdsRequest;
+import org.distributed.shardingjh.model.Member;
+import org.distributed.shardingjh.p2p.RingHash;
+import org.distributed.shardingjh.util.EncryptUtil;
+import org.distributed.shardingjh.util.SignatureUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The client sends every request to the owner of the id, signed, and follows a 307 after a ring change.
+ * Batches are sent as one sub-batch per owner.
+ * Two stub nodes: A owns hashes 0..127, B owns 128..255.
+ * */
+@Slf4j
+public class ShardingJhClientTest {
+
+    private static final String SECRET_KEY = "myShardingJHSecretKey";
+
+    private HttpServer nodeA;
+
+    private HttpServer nodeB;
+
+    private String urlA;
+
+    private String urlB;
+
+    // ring served by the stubs, B redirects to A once it is "moved"
+    private volatile Map<Integer, String> ring;
+
+    private volatile boolean movedToA;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Queue<String> receivedByA = new ConcurrentLinkedQueue<>();
+
+    private final Queue<String> receivedByB = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    public void setup() throws IOException {
+        nodeA = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        nodeB = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        urlA = "http://127.0.0.1:" + nodeA.getAddress().getPort();
+        urlB = "http://127.0.0.1:" + nodeB.getAddress().getPort();
+        ring = new TreeMap<>(Map.of(127, urlA, 255, urlB));
+        for (HttpServer node : List.of(nodeA, nodeB)) {
+            Queue<String> received = node == nodeA ? receivedByA : receivedByB;
+            node.createContext("/api/gossip/finger-table", exchange -> {
+                String body = "{\"fingerTable\":{" + ring.entrySet().stream()
+                        .map(e -> "\"" + e.getKey() + "\":\"" + e.getValue() + "\"")
+                        .reduce((a, b) -> a + "," + b).orElse("")
+                        + "},\"version\":\"" + RingHash.versionOf(ring) + "\"}";
+                respond(exchange, 200, body);
+            });
+            node.createContext("/user/get/", exchange -> {
+                String path = exchange.getRequestURI().getPath();
+                received.add(path);
+                if (!EncryptUtil.hmacSha256(path, SECRET_KEY).equals(exchange.getRequestHeaders().getFirst("X-Signature"))) {
+                    respond(exchange, 200, "{\"code\":\"007\",\"message\":\"Unauthorized request\"}");
+                    return;
+                }
+                exchange.getResponseHeaders().set("X-Finger-Version", RingHash.versionOf(ring));
+                if (node == nodeB && movedToA) {
+                    exchange.getResponseHeaders().set("Location", urlA + path);
+                    respond(exchange, 307, "{\"code\":\"0003\",\"message\":\"Moved\"}");
+                    return;
+                }
+                String id = path.substring("/user/get/".length());
+                respond(exchange, 200, "{\"code\":\"0000\",\"message\":\"Success\",\"data\":{\"id\":\"" + id + "\",\"name\":\"n\"}}");
+            });
+            node.createContext("/user/getBatch", exchange -> {
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                MemberIdsRequest batch = objectMapper.readValue(body, MemberIdsRequest.class);
+                String signature = EncryptUtil.hmacSha256(SignatureUtil.toCanonicalJson(batch, objectMapper), SECRET_KEY);
+                if (!signature.equals(exchange.getRequestHeaders().getFirst("X-Signature"))) {
+                    respond(exchange, 200, "{\"code\":\"007\",\"message\":\"Unauthorized request\"}");
+                    return;
+                }
+                received.addAll(batch.getIds());
+                List<Member> members = new ArrayList<>();
+                for (String id : batch.getIds()) {
+                    Member member = new Member();
+                    member.setId(id);
+                    member.setName("n");
+                    members.add(member);
+                }
+                respond(exchange, 200, objectMapper.writeValueAsString(MgrResponseDto.success(members)));
+            });
+            node.start();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        nodeA.stop(0);
+        nodeB.stop(0);
+    }
+
+    private static String idOwnedBy(boolean lowHalf, int skip) {
+        for (int i = 0; ; i++) {
+            String id = "client-member-" + i;
+            if ((RingHash.hashOf(id) <= 127) == lowHalf && skip-- == 0) {
+                return id;
+            }
+        }
+    }
+
+    @Test
+    public void testGetMembers_oneSubBatchPerOwner() throws Exception {
+        List<String> idsOfA = List.of(idOwnedBy(true, 0), idOwnedBy(true, 1));
+        List<String> idsOfB = List.of(idOwnedBy(false, 0), idOwnedBy(false, 1), idOwnedBy(false, 2));
+        List<String> ids = new ArrayList<>(idsOfA);
+        ids.addAll(idsOfB);
+
+        try (ShardingJhClient client = new ShardingJhClient(List.of(urlA), SECRET_KEY)) {
+            MgrResponseDto<List<Member>> response = client.getMembers(ids).get(5, TimeUnit.SECONDS);
+
+            assertEquals("0000", response.getCode());
+            assertNull(response.getPartial());
+            assertEquals(new HashSet<>(ids), response.getData().stream().map(Member::getId).collect(Collectors.toSet()));
+            assertEquals(idsOfA, List.copyOf(receivedByA));
+            assertEquals(idsOfB, List.copyOf(receivedByB));
+        }
+    }
+
+    @Test
+    public void testGetMembers_ownerDown_partialResult() throws Exception {
+        List<String> ids = List.of(idOwnedBy(true, 0), idOwnedBy(false, 0));
+        try (ShardingJhClient client = new ShardingJhClient(List.of(urlA), SECRET_KEY)) {
+            nodeB.stop(0);
+            MgrResponseDto<List<Member>> response = client.getMembers(ids).get(10, TimeUnit.SECONDS);
+
+            assertEquals(Boolean.TRUE, response.getPartial());
+            assertEquals(List.of(ids.get(0)), response.getData().stream().map(Member::getId).toList());
+        }
+    }
+
+    @Test
+    public void testGetMember_ringChanged_followsRedirectAndRefreshesRing() throws Exception {
+        String id = idOwnedBy(false, 0);
+        try (ShardingJhClient client = new ShardingJhClient(List.of(urlA), SECRET_KEY)) {
+            assertEquals(urlB, client.ownerOf(id));
+
+            // A takes over the whole ring, B redirects its old ids
+            ring = new TreeMap<>(Map.of(255, urlA));
+            movedToA = true;
+            MgrResponseDto<Member> response = client.getMember(id).get(5, TimeUnit.SECONDS);
+
+            assertEquals("0000", response.getCode());
+            assertEquals(id, response.getData().getId());
+            assertEquals(List.of("/user/get/" + id), List.copyOf(receivedByA));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!urlA.equals(client.ownerOf(id)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(urlA, client.ownerOf(id));
+            assertEquals(RingHash.versionOf(ring), client.ringVersion());
+        }
+    }
+}
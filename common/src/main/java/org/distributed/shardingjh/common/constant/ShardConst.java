@@ -15,6 +15,8 @@ public class ShardConst {
     public static final String SHARD_ORDER_PREFIX = "ORDER_";
     // Shard for old orders
     public static final String SHARD_ORDER_OLD = "OLD";
+    // Suffix of the read-only pool of a shard, e.g. shard_common_1_read
+    public static final String SHARD_READ_SUFFIX = "_read";
     // Total server count
     public static final Integer TOTAL_SERVER_COUNT = 3;
 
@@ -0,0 +1,43 @@
+package org.distributed.shardingjh.common.response;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Merges the sub-batches of a batch split by owner, used by the batch endpoints of the server and by the client SDK.
+ * @author chris
+ */
+@Slf4j
+public final class BatchMerger {
+
+    private BatchMerger() {}
+
+    /**
+     * Local part of a batch plus the sub-batches forwarded to the other owners.
+     * An owner that fails or does not answer success is reported as missing and the result is partial
+     */
+    public static <T> CompletableFuture<MgrResponseDto<List<T>>> merge(List<T> local,
+                                                                       Map<String, CompletableFuture<MgrResponseDto<List<T>>>> forwarded) {
+        return CompletableFuture.allOf(forwarded.values().toArray(new CompletableFuture<?>[0])).handle((done, e) -> {
+            List<T> all = new ArrayList<>(local);
+            List<String> missing = new ArrayList<>();
+            forwarded.forEach((node, future) -> {
+                MgrResponseDto<List<T>> response = future.isCompletedExceptionally() ? null : future.join();
+                if (response == null || !MgrResponseCode.SUCCESS.getCode().equals(response.getCode()) || response.getData() == null) {
+                    log.warn("[P2P] Sub-batch failed on {}: {}", node, response == null ? "no response" : response.getMessage());
+                    missing.add(node);
+                    return;
+                }
+                all.addAll(response.getData());
+                if (Boolean.TRUE.equals(response.getPartial())) {
+                    missing.add(node);
+                }
+            });
+            return missing.isEmpty() ? MgrResponseDto.success(all) : MgrResponseDto.partial(all, missing);
+        });
+    }
+}
@@ -13,6 +13,7 @@ public enum MgrResponseCode {
 
     INVALID_REQUEST("0001", "Invalid request"),
     INVALID_REMOTE_API("0002", "Remote call exception"),
+    MOVED("0003", "Not the owner, resend the request to the owner"),
     REQUEST_ACCESS_DENIED("003", "Unauthorized access request, access denied"),
     TOO_MANY_REQUESTS("004", "Too Many Requests"),
     UNSUPPORTED_OPERATION("005", "Unsupported operation"),
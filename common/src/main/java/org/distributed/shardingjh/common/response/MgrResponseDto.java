@@ -1,12 +1,16 @@
 package org.distributed.shardingjh.common.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.ToString;
 
+import java.util.Collection;
+
 /**
  * Response class<br>
  * 1. code
  * 2. message
  * 3. data
+ * 4. partial (only present when some nodes or shards did not answer)
  *
  * @author chris
  * */
@@ -19,6 +23,9 @@ public class MgrResponseDto<T> {
 
     private T data;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean partial;
+
     public static <T> MgrResponseDto<T> success(T data) {
         MgrResponseDto<T> dto = new MgrResponseDto<>();
         dto.setCode(MgrResponseCode.SUCCESS.getCode());
@@ -27,6 +34,13 @@ public class MgrResponseDto<T> {
         return dto;
     }
 
+    public static <T> MgrResponseDto<T> partial(T data, Collection<String> missing) {
+        MgrResponseDto<T> dto = success(data);
+        dto.setMessage("Partial result, no response from: " + missing);
+        dto.setPartial(Boolean.TRUE);
+        return dto;
+    }
+
     public static <T> MgrResponseDto<T> error(MgrResponseCode code) {
         MgrResponseDto<T> dto = new MgrResponseDto<>();
         dto.setCode(code.getCode());
@@ -79,4 +93,12 @@ public class MgrResponseDto<T> {
     public void setData(T data) {
         this.data = data;
     }
+
+    public Boolean getPartial() {
+        return partial;
+    }
+
+    public void setPartial(Boolean partial) {
+        this.partial = partial;
+    }
 }
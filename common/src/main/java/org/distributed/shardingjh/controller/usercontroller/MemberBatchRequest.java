@@ -0,0 +1,17 @@
+package org.distributed.shardingjh.controller.usercontroller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.distributed.shardingjh.model.Member;
+
+import java.util.List;
+
+/**
+ * Body of /user/saveBatch
+ * */
+@Getter
+@Setter
+public class MemberBatchRequest {
+
+    private List<Member> members;
+}
@@ -0,0 +1,16 @@
+package org.distributed.shardingjh.controller.usercontroller;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Body of /user/getBatch
+ * */
+@Getter
+@Setter
+public class MemberIdsRequest {
+
+    private List<String> ids;
+}
@@ -0,0 +1,17 @@
+package org.distributed.shardingjh.controller.usercontroller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+
+import java.util.List;
+
+/**
+ * Body of /order/saveBatch
+ * */
+@Getter
+@Setter
+public class OrderBatchRequest {
+
+    private List<RequestOrder> orders;
+}
@@ -0,0 +1,45 @@
+package org.distributed.shardingjh.p2p;
+
+import org.distributed.shardingjh.common.constant.ShardConst;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Placement of ids on the ring, shared by the server (FingerTable, ServerRouter) and the client SDK (ShardingJhClient),
+ * which must agree on it.
+ * @author chris
+ */
+public final class RingHash {
+
+    private RingHash() {}
+
+    /**
+     * Owner of an id: the first node at or after hash(id) on the ring, wrapping around to the first node.
+     * */
+    public static String ownerOf(NavigableMap<Integer, String> ring, String id) {
+        Map.Entry<Integer, String> entry = ring.ceilingEntry(hashOf(id));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    // id.hashCode() % 256
+    public static int hashOf(String id) {
+        return Math.abs(id.hashCode()) % ShardConst.FINGER_MAX_RANGE;
+    }
+
+    /**
+     * Version of a ring: a hash of the entries, so every node holding the same entries reports the same version
+     * */
+    public static String versionOf(Map<Integer, String> entries) {
+        long hash = 1125899906842597L;
+        Map<Integer, String> sorted = entries instanceof SortedMap<Integer, String> sortedEntries && sortedEntries.comparator() == null
+                ? entries : new TreeMap<>(entries);
+        for (Map.Entry<Integer, String> entry : sorted.entrySet()) {
+            hash = 31 * hash + entry.getKey();
+            hash = 31 * hash + entry.getValue().hashCode();
+        }
+        return Long.toHexString(hash);
+    }
+}
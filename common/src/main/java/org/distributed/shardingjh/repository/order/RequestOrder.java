@@ -3,7 +3,7 @@ package org.distributed.shardingjh.repository.order;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
-import org.distributed.shardingjh.service.Impl.OrderIdGenerator;
+import org.distributed.shardingjh.util.OrderIdGenerator;
 
 import java.time.LocalDateTime;
 
@@ -23,6 +23,6 @@ public class RequestOrder {
 
     @JsonIgnore
     public void generateOrderId() {
-        this.orderId = OrderIdGenerator.generateOrderId(createTime, memberId);
+        this.orderId = OrderIdGenerator.generate(createTime, memberId);
     }
 }
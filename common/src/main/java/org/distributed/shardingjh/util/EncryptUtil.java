@@ -0,0 +1,59 @@
+package org.distributed.shardingjh.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Encryption helper clas
+ * */
+public class EncryptUtil {
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    // last key used on this thread and its initialized Mac, callers almost always use the same secret
+    private static final ThreadLocal<KeyedMac> THREAD_MAC = new ThreadLocal<>();
+
+    private record KeyedMac(String secret, Mac mac) {}
+
+    /**
+     * Generates a HMAC-SHA256 hash for the given message using the provided secret key.
+     *
+     * @param message The input message to hash.
+     * @param secret The secret key used for HMAC.
+     * @return The resulting HMAC-SHA256 as a Base64-encoded string.
+     * @throws RuntimeException if there is a cryptographic error.
+     */
+    public static String hmacSha256(String message, String secret) {
+        Mac mac = threadMac(secret);
+        // Compute the HMAC on the input message, doFinal resets the Mac for the next call
+        byte[] hash = mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        // Return the Base64-encoded result
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Mac of this thread initialized with the secret, reset and ready for update / doFinal
+     * */
+    public static Mac threadMac(String secret) {
+        KeyedMac keyed = THREAD_MAC.get();
+        if (keyed == null || !keyed.secret().equals(secret)) {
+            keyed = new KeyedMac(secret, newMac(secret));
+            THREAD_MAC.set(keyed);
+        }
+        return keyed.mac();
+    }
+
+    public static Mac newMac(String secret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            // Wrap and rethrow any exceptions as a runtime exception
+            throw new RuntimeException("Error generating HMAC-SHA256", e);
+        }
+    }
+}
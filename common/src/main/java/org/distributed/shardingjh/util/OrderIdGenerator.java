@@ -0,0 +1,148 @@
+package org.distributed.shardingjh.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Order ID schemes, selected with order.id.scheme:
+ * - md5: 32 hex chars, MD5 of createTime and memberId (default)
+ * - sortable: 26 chars Crockford base32 of 128 bits
+ *     48 bits createTime epoch millis (UTC) | 16 bits sub-millisecond | 64 bits hash of memberId and createTime
+ *   IDs sort by createTime, which keeps order_table inserts at the end of the primary key B-tree,
+ *   and the year shard can be read back from the ID alone (see createTimeOf).
+ * Both schemes give the same ID for the same (createTime, memberId).
+ * Shared by the server and the client, the server applies order.id.scheme at startup (OrderIdScheme).
+ */
+@Slf4j
+public class OrderIdGenerator {
+
+    public static final String SCHEME_MD5 = "md5";
+    public static final String SCHEME_SORTABLE = "sortable";
+
+    public static final int SORTABLE_ID_LENGTH = 26;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Crockford base32, no I, L, O, U
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    private static volatile String scheme = SCHEME_MD5;
+
+    public static void setScheme(String configured) {
+        if (!SCHEME_MD5.equals(configured) && !SCHEME_SORTABLE.equals(configured)) {
+            throw new IllegalArgumentException("Unknown order.id.scheme: " + configured);
+        }
+        scheme = configured;
+        log.info("Order ID scheme: {}", configured);
+    }
+
+    /**
+     * Generates the order ID with the configured scheme
+     */
+    public static String generate(LocalDateTime createTime, String memberId) {
+        return SCHEME_SORTABLE.equals(scheme)
+                ? generateSortableOrderId(createTime, memberId)
+                : generateOrderId(createTime, memberId);
+    }
+
+    /**
+     * Generates a unique order ID based on the current time and member ID.
+     *
+     * @param createTime The time the order was created.
+     * @param memberId   The ID of the member placing the order.
+     * @return A unique order ID.
+     */
+    public static String generateOrderId(LocalDateTime createTime, String memberId) {
+        String prefix = "order";
+        String baseString = prefix + createTime.toString() + memberId;
+        byte[] hashBytes = MD5.get().digest(baseString.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[hashBytes.length * 2];
+        for (int i = 0; i < hashBytes.length; i++) {
+            hex[i * 2] = HEX[(hashBytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hashBytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Generates a time-sortable order ID, see the class comment for the layout.
+     */
+    public static String generateSortableOrderId(LocalDateTime createTime, String memberId) {
+        char[] id = new char[SORTABLE_ID_LENGTH];
+        writeSortableOrderId(createTime, memberId, id, 0);
+        return new String(id);
+    }
+
+    /**
+     * Allocation-free encoder: writes the 26 chars of the sortable ID into dst at offset
+     */
+    public static void writeSortableOrderId(LocalDateTime createTime, String memberId, char[] dst, int offset) {
+        long epochMillis = createTime.toEpochSecond(ZoneOffset.UTC) * 1000 + createTime.getNano() / 1_000_000;
+        int subMillis = (createTime.getNano() % 1_000_000) >>> 4;
+
+        // FNV-1a over the member id chars, finished with the splitmix64 mixer
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < memberId.length(); i++) {
+            hash = (hash ^ memberId.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= epochMillis * 0x9e3779b97f4a7c15L + createTime.getNano();
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+
+        long hi = (epochMillis << 16) | subMillis;
+        long lo = hash;
+        for (int i = SORTABLE_ID_LENGTH - 1; i >= 0; i--) {
+            dst[offset + i] = CROCKFORD[(int) (lo & 31)];
+            lo = (lo >>> 5) | (hi << 59);
+            hi >>>= 5;
+        }
+    }
+
+    /**
+     * createTime (to the millisecond) carried by a sortable order ID
+     *
+     * @return null for an MD5 order ID
+     */
+    public static LocalDateTime createTimeOf(String orderId) {
+        if (orderId == null || orderId.length() != SORTABLE_ID_LENGTH) {
+            return null;
+        }
+        // The first 10 chars hold 50 bits: 2 zero bits and the 48 bits of epoch millis
+        long epochMillis = 0;
+        for (int i = 0; i < 10; i++) {
+            int value = crockfordValue(orderId.charAt(i));
+            if (value < 0) {
+                return null;
+            }
+            epochMillis = (epochMillis << 5) | value;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static int crockfordValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        for (int i = 10; i < CROCKFORD.length; i++) {
+            if (CROCKFORD[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,43 @@
+package org.distributed.shardingjh.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonical JSON of a request body, the signed form: object keys sorted at every level, lists in order.
+ * Written in one pass by a copy of the application ObjectMapper that sorts properties and map keys itself,
+ * same output as converting to nested TreeMaps and serializing those, without building them.
+ * */
+public class SignatureUtil {
+
+    // one sorting copy per application mapper, copying a mapper is expensive
+    private static final Map<ObjectMapper, ObjectMapper> CANONICAL_MAPPERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public static String toCanonicalJson(Object obj, ObjectMapper objectMapper) throws JsonProcessingException {
+        return canonicalMapper(objectMapper).writeValueAsString(obj);
+    }
+
+    /**
+     * Canonical JSON as UTF-8 straight into out, e.g. a MAC
+     * */
+    public static void writeCanonicalJson(Object obj, ObjectMapper objectMapper, OutputStream out) throws IOException {
+        canonicalMapper(objectMapper).writeValue(out, obj);
+    }
+
+    @SuppressWarnings("deprecation")
+    public static ObjectMapper canonicalMapper(ObjectMapper objectMapper) {
+        return CANONICAL_MAPPERS.computeIfAbsent(objectMapper, mapper -> mapper.copy()
+                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                // creator (constructor) properties would otherwise come first
+                .configure(MapperFeature.SORT_CREATOR_PROPERTIES_FIRST, false)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true));
+    }
+}
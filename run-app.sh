@@ -20,7 +20,7 @@ echo "Building Spring Boot project..."
 ./mvnw clean package -DskipTests
 
 # Find the generated JAR
-JAR_FILE=$(ls target/*.jar | head -n 1)
+JAR_FILE=$(ls server/target/*.jar | head -n 1)
 echo "Found JAR: $JAR_FILE"
 
 # Launch with the correct profile
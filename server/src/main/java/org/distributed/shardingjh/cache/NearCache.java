@@ -0,0 +1,238 @@
+package org.distributed.shardingjh.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.gossip.GossipMsg;
+import org.distributed.shardingjh.gossip.GossipService;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of members, products and current orders in front of {@link RedisEntityCache} (cache.near.enabled).
+ * Caffeine picks what to keep (W-TinyLFU: a key must be read more often than the one it would evict),
+ * the bound is the estimated size in bytes of the entries, about their JSON length. The length is measured for
+ * the first value of each type and then for one put in SIZE_SAMPLE_RATE, the other puts reuse it.
+ * <p>
+ * A write evicts its keys here and queues them, the queue is sent to the other nodes as one CACHE_INVALIDATE gossip
+ * every invalidation-flush-ms. Gossip is UDP, a lost invalidation is bounded by expire-after-write-seconds.
+ * Products are written on every node by the RabbitMQ fanout, they only need {@link #invalidateLocal}.
+ * Cached values are shared between threads, callers must not modify them.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+public class NearCache {
+
+    // the receiver reads datagrams of 4096 bytes, leave room for the rest of the message
+    private static final int MAX_KEYS_BYTES_PER_MESSAGE = 3000;
+
+    private static final String KEY_SEPARATOR = "\n";
+
+    // loads overlapping an invalidation are detected per stripe of keys, a few false positives but bounded memory
+    private static final int VERSION_STRIPES = 4096;
+
+    private static final int SIZE_SAMPLE_RATE = 64;
+
+    private final Cache<String, Object> cache;
+
+    private final ObjectMapper objectMapper;
+
+    private final GossipService gossipService;
+
+    private final FingerTable fingerTable;
+
+    private final boolean enabled;
+
+    private final String currentNodeUrl;
+
+    // keys written on this node, not yet sent to the others
+    private final ConcurrentLinkedQueue<String> pendingInvalidations = new ConcurrentLinkedQueue<>();
+
+    // bumped by the invalidation of a key of the stripe, a load that overlapped one is not cached (it may have read the old row)
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    // last measured JSON length per value type
+    private final ConcurrentHashMap<Class<?>, Integer> typeSizes = new ConcurrentHashMap<>();
+
+    private final AtomicLong weighed = new AtomicLong();
+
+    private final AtomicLong messageSeq = new AtomicLong();
+
+    private final Counter localInvalidations;
+
+    private final Counter remoteInvalidations;
+
+    public NearCache(MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                     @Lazy GossipService gossipService, FingerTable fingerTable,
+                     @Value("${cache.near.enabled:false}") boolean enabled,
+                     @Value("${cache.near.max-weight-bytes:67108864}") long maxWeightBytes,
+                     @Value("${cache.near.expire-after-write-seconds:60}") long expireAfterWriteSeconds,
+                     @Value("${router.server-url}") String currentNodeUrl) {
+        this.objectMapper = objectMapper;
+        this.gossipService = gossipService;
+        this.fingerTable = fingerTable;
+        this.enabled = enabled;
+        this.currentNodeUrl = currentNodeUrl;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, Object value) -> weigh(key, value))
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "near");
+        this.localInvalidations = meterRegistry.counter("cache.near.invalidations", "source", "local");
+        this.remoteInvalidations = meterRegistry.counter("cache.near.invalidations", "source", "remote");
+        log.info("[Cache] Near cache {} (max {} bytes, expire after {} s)", enabled ? "enabled" : "disabled", maxWeightBytes, expireAfterWriteSeconds);
+    }
+
+    /**
+     * Cached value of the key, or the loader's value which is then cached. Misses (null) are not kept here,
+     * the Redis layer caches them
+     * */
+    public <T> T getOrLoad(String key, Class<T> type, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Object cached = cache.getIfPresent(key);
+        if (type.isInstance(cached)) {
+            return type.cast(cached);
+        }
+        int stripe = stripe(key);
+        long before = versions.get(stripe);
+        T value = loader.get();
+        if (value != null && versions.get(stripe) == before) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Write-through after a save on this node, other nodes drop their copy
+     * */
+    public void put(String key, Object value) {
+        if (!enabled) {
+            return;
+        }
+        invalidate(key);
+        if (value != null) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Drop the keys here and on the other nodes
+     * */
+    public void invalidate(String... keys) {
+        if (!enabled) {
+            return;
+        }
+        invalidateLocal(List.of(keys));
+        localInvalidations.increment(keys.length);
+        pendingInvalidations.addAll(List.of(keys));
+    }
+
+    /**
+     * Drop the keys on this node only
+     * */
+    public void invalidateLocal(Collection<String> keys) {
+        if (!enabled) {
+            return;
+        }
+        keys.forEach(key -> versions.incrementAndGet(stripe(key)));
+        cache.invalidateAll(keys);
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), VERSION_STRIPES);
+    }
+
+    /**
+     * CACHE_INVALIDATE gossip from another node
+     * */
+    public void onInvalidateGossip(String content) {
+        if (!enabled || content == null || content.isEmpty()) {
+            return;
+        }
+        List<String> keys = List.of(content.split(KEY_SEPARATOR));
+        invalidateLocal(keys);
+        remoteInvalidations.increment(keys.size());
+        log.debug("[Cache] Invalidated {} keys from gossip", keys.size());
+    }
+
+    /**
+     * Send the queued keys to every other node, several keys per datagram
+     * */
+    @Scheduled(fixedDelayString = "${cache.near.invalidation-flush-ms:100}")
+    public void flushInvalidations() {
+        if (pendingInvalidations.isEmpty()) {
+            return;
+        }
+        List<String> nodes = new ArrayList<>(fingerTable.finger.values());
+        StringBuilder content = new StringBuilder();
+        int contentBytes = 0;
+        String key;
+        while ((key = pendingInvalidations.poll()) != null) {
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (contentBytes > 0 && contentBytes + keyBytes > MAX_KEYS_BYTES_PER_MESSAGE) {
+                send(content.toString(), nodes);
+                content.setLength(0);
+                contentBytes = 0;
+            }
+            if (contentBytes > 0) {
+                content.append(KEY_SEPARATOR);
+            }
+            content.append(key);
+            contentBytes += keyBytes;
+        }
+        send(content.toString(), nodes);
+    }
+
+    private void send(String content, List<String> nodes) {
+        GossipMsg msg = GossipMsg.builder()
+                .msgType(GossipMsg.Type.CACHE_INVALIDATE)
+                .msgContent(content)
+                .senderId(currentNodeUrl)
+                // several messages can leave within one millisecond, the receiver drops repeated sender + timestamp
+                .timestamp(System.currentTimeMillis() + "-" + messageSeq.incrementAndGet())
+                .build();
+        gossipService.sendToAllNodes(msg, nodes);
+    }
+
+    private int weigh(String key, Object value) {
+        Integer valueBytes = typeSizes.get(value.getClass());
+        if (valueBytes == null || weighed.incrementAndGet() % SIZE_SAMPLE_RATE == 0) {
+            valueBytes = measure(value);
+            typeSizes.put(value.getClass(), valueBytes);
+        }
+        // chars are 2 bytes, plus the entry and object headers
+        return key.length() * 2 + valueBytes + 64;
+    }
+
+    private int measure(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value).length;
+        } catch (Exception e) {
+            return 1024;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.distributed.shardingjh.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of members and orders in Redis (cache.redis.enabled).
+ * Values are stored as JSON with the application ObjectMapper, a miss is stored as an empty string
+ * for negative-ttl-seconds so repeated reads of unknown ids do not reach SQLite either.
+ * <p>
+ * Redis is optional: when it is disabled or fails, every call goes to the loader (fail open),
+ * keep spring.data.redis.timeout short so a Redis outage does not stall reads.
+ * Writers update or evict their keys after the commit, a read racing with a write can still
+ * put the old value back, the TTL bounds how long it stays.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+public class RedisEntityCache {
+
+    private static final String MISS = "";
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final Duration ttl;
+
+    private final Duration negativeTtl;
+
+    public RedisEntityCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                            @Value("${cache.redis.enabled:false}") boolean enabled,
+                            @Value("${cache.redis.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${cache.redis.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.negativeTtl = Duration.ofSeconds(negativeTtlSeconds);
+        log.info("[Cache] Redis cache {} (ttl {} s, negative ttl {} s)", enabled ? "enabled" : "disabled", ttlSeconds, negativeTtlSeconds);
+    }
+
+    /**
+     * Cached value of the key, or the loader's value (null for not found) which is then cached
+     * */
+    public <T> T getOrLoad(String key, Class<T> type, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        try {
+            String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return MISS.equals(cached) ? null : objectMapper.readValue(cached, type);
+            }
+        } catch (Exception e) {
+            log.warn("[Cache] Redis read of {} failed, reading the database: {}", key, e.getMessage());
+            return loader.get();
+        }
+        T value = loader.get();
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Write-through after a save, null caches a miss
+     * */
+    public void put(String key, Object value) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (value == null) {
+                redisTemplate.opsForValue().set(key, MISS, negativeTtl);
+            } else {
+                redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value), ttl);
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("[Cache] {} not cached: {}", key, e.getMessage());
+        } catch (Exception e) {
+            log.warn("[Cache] Redis write of {} failed: {}", key, e.getMessage());
+        }
+    }
+
+    public void evict(String... keys) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(List.of(keys));
+        } catch (Exception e) {
+            log.warn("[Cache] Redis eviction of {} failed: {}", String.join(",", keys), e.getMessage());
+        }
+    }
+}
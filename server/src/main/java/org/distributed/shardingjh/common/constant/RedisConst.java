@@ -16,4 +16,9 @@ public class RedisConst {
      * Redis key prefix for order information
      */
     public static final String REDIS_KEY_ORDER_PREFIX = "ORDER_";
+
+    /**
+     * Cache key prefix for product information
+     */
+    public static final String REDIS_KEY_PRODUCT_PREFIX = "PRODUCT_";
 }
@@ -0,0 +1,150 @@
+package org.distributed.shardingjh.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.Resource;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Configure 7 pooled data source beans
+ * - shardCommon1DataSource
+ * - shardCommon2DataSource
+ * - shardOrder2024DataSource
+ * - shardOrder2025DataSource
+ * - shardOrderOldDataSource
+ * - productDataSource
+ * - orderDirectoryDataSource (orderId -> order shard, see OrderDirectory)
+ *
+ * Every shard owns its own Hikari pool. Shared defaults come from spring.datasource.hikari.*
+ * and each shard can override them under spring.datasource.{shard}.*
+ * SQLite pragmas (WAL, busy_timeout, synchronous) are passed as
+ * data-source-properties and applied by the driver on every physical connection.
+ *
+ * Single writer / multi reader:
+ * SQLite in WAL mode allows many readers but only one writer, so each routed shard has
+ * - a write pool holding one connection; concurrent writers queue inside the pool instead of
+ *   fighting over the SQLite lock
+ * - a read-only pool ({shard}ReadDataSource) configured under spring.datasource.{shard}.read.*
+ *
+ * @author chris
+ * */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String SHARED_POOL_PREFIX = "spring.datasource.hikari";
+
+    // SQLITE_OPEN_READONLY
+    private static final String SQLITE_READ_ONLY_OPEN_MODE = "1";
+
+    @Resource
+    private Environment environment;
+
+    @Bean(name = "shardCommon1DataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardcommon1")
+    public DataSource shardCommon1DataSource() {
+        return pooledDataSource();
+    }
+
+    @Bean(name = "shardCommon1ReadDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardcommon1.read")
+    public DataSource shardCommon1ReadDataSource(@Qualifier("shardCommon1DataSource") DataSource writer) {
+        return readOnlyDataSource(writer);
+    }
+
+    @Bean(name = "shardCommon2DataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardcommon2")
+    public DataSource shardCommon2DataSource() {
+        return pooledDataSource();
+    }
+
+    @Bean(name = "shardCommon2ReadDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardcommon2.read")
+    public DataSource shardCommon2ReadDataSource(@Qualifier("shardCommon2DataSource") DataSource writer) {
+        return readOnlyDataSource(writer);
+    }
+
+    @Bean(name = "shardOrder2024DataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardorder2024")
+    public DataSource shardOrder2024DataSource() {
+        return pooledDataSource();
+    }
+
+    @Bean(name = "shardOrder2024ReadDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardorder2024.read")
+    public DataSource shardOrder2024ReadDataSource(@Qualifier("shardOrder2024DataSource") DataSource writer) {
+        return readOnlyDataSource(writer);
+    }
+
+    @Bean(name = "shardOrder2025DataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardorder2025")
+    public DataSource shardOrder2025DataSource() {
+        return pooledDataSource();
+    }
+
+    @Bean(name = "shardOrder2025ReadDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardorder2025.read")
+    public DataSource shardOrder2025ReadDataSource(@Qualifier("shardOrder2025DataSource") DataSource writer) {
+        return readOnlyDataSource(writer);
+    }
+
+    @Bean(name = "shardOrderOldDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardorderold")
+    public DataSource shardOrderOldDataSource() {
+        return pooledDataSource();
+    }
+
+    @Bean(name = "shardOrderOldReadDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.shardorderold.read")
+    public DataSource shardOrderOldReadDataSource(@Qualifier("shardOrderOldDataSource") DataSource writer) {
+        return readOnlyDataSource(writer);
+    }
+
+    @Bean(name = "productDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.product")
+    public DataSource productDataSource() {
+        return pooledDataSource();
+    }
+
+    @Bean(name = "orderDirectoryDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.orderdirectory")
+    public DataSource orderDirectoryDataSource() {
+        return pooledDataSource();
+    }
+
+    /**
+     * Create an unstarted pool pre-filled with the shared defaults.
+     * The shard specific @ConfigurationProperties binding runs afterwards and wins.
+     * */
+    private HikariDataSource pooledDataSource() {
+        HikariConfig defaults = Binder.get(environment)
+                .bind(SHARED_POOL_PREFIX, HikariConfig.class)
+                .orElseGet(HikariConfig::new);
+        HikariDataSource dataSource = new HikariDataSource();
+        defaults.copyStateTo(dataSource);
+        return dataSource;
+    }
+
+    /**
+     * Create the read-only pool of a shard.
+     * Points to the same SQLite file as the writer, but connections are opened read-only.
+     * */
+    private HikariDataSource readOnlyDataSource(DataSource writer) {
+        HikariDataSource primary = (HikariDataSource) writer;
+        HikariDataSource reader = pooledDataSource();
+        reader.setJdbcUrl(primary.getJdbcUrl());
+        reader.setDriverClassName(primary.getDriverClassName());
+        reader.setDataSourceProperties(primary.getDataSourceProperties());
+        reader.addDataSourceProperty("open_mode", SQLITE_READ_ONLY_OPEN_MODE);
+        reader.setReadOnly(true);
+        reader.setPoolName(primary.getPoolName() + ShardConst.SHARD_READ_SUFFIX);
+        return reader;
+    }
+}
@@ -0,0 +1,132 @@
+package org.distributed.shardingjh.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Keeps the bytes of a POST body as received, so a request forwarded to the owner sends them as they are
+ * (ServerRouter.forwardPostAsync) and the owner can check the hop token over them (HopToken),
+ * instead of serializing the bound object again. Runs before PassthroughFilter, which reads the same bytes.
+ * Only the JSON POSTs whose body is signed (X-Signature / X-Hop-Token) are buffered, the others stream as usual.
+ *
+ * @author chris
+ * */
+@Component
+@Order(0)
+public class InboundBodyFilter extends OncePerRequestFilter {
+
+    public static final String BODY_ATTRIBUTE = InboundBodyFilter.class.getName() + ".body";
+
+    // endpoints checking SignatureVerifier.verifyBody, keep in line with the controllers
+    static final Set<String> SIGNED_BODY_PATHS = Set.of(
+            "/user/save", "/user/update", "/user/saveBatch", "/user/getBatch",
+            "/order/save", "/order/update", "/order/delete", "/order/saveBatch");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // form posts keep their body for getParameter
+        return !"POST".equals(request.getMethod()) || !SIGNED_BODY_PATHS.contains(request.getRequestURI())
+                || request.getContentType() == null || !request.getContentType().contains("json");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        request.setAttribute(BODY_ATTRIBUTE, body);
+        chain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    /**
+     * Body of the request being handled on this thread, null outside a request or for other methods
+     * */
+    public static byte[] currentBody() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (byte[]) attributes.getAttribute(BODY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // everything is already here: readable at once, then finished
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
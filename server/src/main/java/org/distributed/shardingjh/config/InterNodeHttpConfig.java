@@ -0,0 +1,184 @@
+package org.distributed.shardingjh.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Shared HTTP transport for requests between nodes (forwarding, scatter-gather, static files, health checks).
+ * Connections are pooled per peer and kept alive, so a forwarded request does not pay a TCP handshake.
+ * <p>
+ * interNodeAsyncHttpClient is the non-blocking variant used by ServerRouter's *Async methods:
+ * a few I/O reactor threads serve every forwarded request in flight, no request thread waits on the peer.
+ * <p>
+ * Metrics (/actuator/metrics):
+ * - httpcomponents.httpclient.pool.* : leased / available connections and pending requests,
+ *   tag httpclient=internode (blocking) or internode-async
+ * - internode.http.requests : requests sent, per peer and client (internode / internode-async)
+ * - internode.http.connections.created : new TCP connections, per client.
+ *   Reuse of a client = 1 - created / requests, both with the same client tag
+ *
+ * @author chris
+ * */
+@Slf4j
+@Configuration
+public class InterNodeHttpConfig {
+
+    @Value("${internode.http.max-per-peer:32}")
+    private int maxPerPeer;
+
+    @Value("${internode.http.max-total:128}")
+    private int maxTotal;
+
+    @Value("${internode.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${internode.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    // how long a request waits for a free pooled connection before failing
+    @Value("${internode.http.pool-timeout-ms:1000}")
+    private long poolTimeoutMs;
+
+    @Value("${internode.http.idle-evict-ms:30000}")
+    private long idleEvictMs;
+
+    @Value("${internode.http.validate-after-inactivity-ms:2000}")
+    private long validateAfterInactivityMs;
+
+    @Value("${internode.http.io-threads:2}")
+    private int ioThreads;
+
+    private ConnectionConfig connectionConfig() {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                .build();
+    }
+
+    private RequestConfig requestConfig() {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build();
+    }
+
+    private static final String CLIENT = "internode";
+
+    private static final String ASYNC_CLIENT = "internode-async";
+
+    private static Counter connectionsCreated(MeterRegistry meterRegistry, String client) {
+        return Counter.builder("internode.http.connections.created")
+                .description("New TCP connections opened to other nodes")
+                .tag("client", client)
+                .register(meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager interNodeConnectionManager(MeterRegistry meterRegistry) {
+        Counter created = connectionsCreated(meterRegistry, CLIENT);
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(maxPerPeer)
+                .setMaxConnTotal(maxTotal)
+                .setDefaultConnectionConfig(connectionConfig())
+                .setConnectionFactory(socket -> {
+                    created.increment();
+                    return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+                })
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, CLIENT).bindTo(meterRegistry);
+        log.info("[InterNodeHttp] Pool: {} per peer, {} total, connect timeout {} ms, read timeout {} ms",
+                maxPerPeer, maxTotal, connectTimeoutMs, readTimeoutMs);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient interNodeHttpClient(PoolingHttpClientConnectionManager interNodeConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(interNodeConnectionManager)
+                .setDefaultRequestConfig(requestConfig())
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictMs))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    public RestTemplate interNodeRestTemplate(CloseableHttpClient interNodeHttpClient, MeterRegistry meterRegistry) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(interNodeHttpClient);
+        // a scatter-gather source does not read from its peer longer than the gather waits for it
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            long remaining = ScatterGather.remainingMillis();
+            if (remaining >= readTimeoutMs) {
+                return null;
+            }
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.copy(requestConfig())
+                    .setResponseTimeout(Timeout.ofMilliseconds(remaining))
+                    .build());
+            return context;
+        });
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        ClientHttpRequestInterceptor counter = (request, body, execution) -> {
+            String peer = request.getURI().getHost() + ":" + request.getURI().getPort();
+            meterRegistry.counter("internode.http.requests", "peer", peer, "client", CLIENT).increment();
+            return execution.execute(request, body);
+        };
+        restTemplate.getInterceptors().add(counter);
+        return restTemplate;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient interNodeAsyncHttpClient(MeterRegistry meterRegistry) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(maxPerPeer)
+                .setMaxConnTotal(maxTotal)
+                .setDefaultConnectionConfig(connectionConfig())
+                // peers speak HTTP/1.1 only, do not negotiate h2
+                .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1).build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, ASYNC_CLIENT).bindTo(meterRegistry);
+        Counter created = connectionsCreated(meterRegistry, ASYNC_CLIENT);
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(ioThreads).build())
+                .setDefaultRequestConfig(requestConfig())
+                .addRequestInterceptorFirst((request, entity, context) -> meterRegistry.counter("internode.http.requests",
+                        "peer", request.getAuthority().toString(), "client", ASYNC_CLIENT).increment())
+                // every new connection of the reactor gets a session
+                .setIoSessionDecorator(session -> {
+                    created.increment();
+                    return session;
+                })
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictMs))
+                .evictExpiredConnections()
+                .build();
+        client.start();
+        return client;
+    }
+}
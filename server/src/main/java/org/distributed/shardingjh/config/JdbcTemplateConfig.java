@@ -24,4 +24,17 @@ public class JdbcTemplateConfig {
     public JdbcTemplate jdbcTemplateOld(@Qualifier("shardOrderOldDataSource") DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
+
+    /**
+     * Routed by ShardContext like the order repository
+     * */
+    @Bean(name = "orderRoutingJdbcTemplate")
+    public JdbcTemplate orderRoutingJdbcTemplate(@Qualifier("shardOrderRoutingDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(name = "orderDirectoryJdbcTemplate")
+    public JdbcTemplate orderDirectoryJdbcTemplate(@Qualifier("orderDirectoryDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
 }
@@ -46,6 +46,8 @@ public class OrderJpaConfig {
         Map<String, Object> props = new HashMap<>();
         props.put("hibernate.hbm2ddl.auto", "none");
         props.put("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect");
+        // SQL of the repository queries for OrderServiceImpl.explainQueryPlans
+        props.put("hibernate.session_factory.statement_inspector", new SqlCapture());
         return props;
     }
 }
@@ -0,0 +1,259 @@
+package org.distributed.shardingjh.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.response.MgrResponseCode;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.controller.MovedResponseAdvice;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * router.passthrough.enabled: single member / order requests owned by another node are forwarded as bytes,
+ * before Spring MVC binds anything. The owner is found from the id alone (path, query or one field of the body read
+ * with the streaming parser), the body goes out as received and the owner's status and body are copied back.
+ * No request thread waits for the owner (servlet async), the answer is copied on a container thread
+ * and an owner that does not answer within router.passthrough.timeout-ms gets the client a 504.
+ * <p>
+ * This node does not check X-Signature of these requests, the owner does (once).
+ * A request that already went through a passthrough is handled by the controller, so nodes whose rings
+ * disagree do not bounce it. Redirect mode and batches keep going through the controllers.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+@Order(1)
+public class PassthroughFilter extends OncePerRequestFilter {
+
+    public static final String PASSTHROUGH_HEADER = "X-Passthrough";
+
+    private final ServerRouter serverRouter;
+
+    private final FingerTable fingerTable;
+
+    private final ObjectMapper objectMapper;
+
+    private final JsonFactory jsonFactory;
+
+    private final boolean enabled;
+
+    private final String currentNodeUrl;
+
+    private final long timeoutMs;
+
+    public PassthroughFilter(ServerRouter serverRouter, FingerTable fingerTable, ObjectMapper objectMapper,
+                             @Value("${router.passthrough.enabled:false}") boolean enabled,
+                             @Value("${router.server-url}") String currentNodeUrl,
+                             @Value("${router.passthrough.timeout-ms:10000}") long timeoutMs) {
+        this.serverRouter = serverRouter;
+        this.fingerTable = fingerTable;
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        this.enabled = enabled;
+        this.currentNodeUrl = currentNodeUrl;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || serverRouter.isRedirectMode() || fingerTable.finger.isEmpty()
+                || request.getHeader(PASSTHROUGH_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = (byte[]) request.getAttribute(InboundBodyFilter.BODY_ATTRIBUTE);
+        String id = routingId(request, body);
+        if (id == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String owner = request.getRequestURI().startsWith("/user/")
+                ? serverRouter.getMemberResponsibleServerUrl(id)
+                : serverRouter.getOrderResponsibleServerUrl(id);
+        if (currentNodeUrl.equals(owner)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // no handler mapping runs, so the endpoint is named here for http.server.requests
+        ServerHttpObservationFilter.findObservationContext(request)
+                .ifPresent(context -> context.setPathPattern(pathPattern(request.getRequestURI())));
+        RoutingObservationConvention.markRouted(request, "passthrough", owner);
+
+        String method = request.getMethod();
+        String pathWithQuery = request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+        AsyncContext async = request.startAsync();
+        async.setTimeout(timeoutMs);
+        // set by whichever comes first: the owner's answer or the timeout, the other one leaves the response alone
+        AtomicBoolean answered = new AtomicBoolean();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (answered.compareAndSet(false, true)) {
+                    log.warn("[Passthrough] {} {} to {} not answered within {} ms", method, pathWithQuery, owner, timeoutMs);
+                    writeError(async, HttpServletResponse.SC_GATEWAY_TIMEOUT, method, pathWithQuery);
+                    async.complete();
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        serverRouter.forwardRawAsync(owner, method, pathWithQuery, request.getHeader("X-Signature"), body)
+                .whenComplete((answer, e) -> {
+                    if (!answered.compareAndSet(false, true)) {
+                        return;
+                    }
+                    // this is an I/O thread of the inter-node client, a slow client must not hold it
+                    try {
+                        async.start(() -> copyAnswer(async, answer, e, owner, method, pathWithQuery));
+                    } catch (IllegalStateException completed) {
+                        log.debug("[Passthrough] {} {} completed before the answer of {}", method, pathWithQuery, owner);
+                    }
+                });
+    }
+
+    private void copyAnswer(AsyncContext async, ServerRouter.RawResponse answer, Throwable e,
+                            String owner, String method, String pathWithQuery) {
+        try {
+            if (e != null) {
+                log.warn("[Passthrough] {} {} to {} failed: {}", method, pathWithQuery, owner, e.getMessage());
+                writeError(async, HttpServletResponse.SC_BAD_GATEWAY, method, pathWithQuery);
+                return;
+            }
+            HttpServletResponse out = (HttpServletResponse) async.getResponse();
+            out.setHeader(MovedResponseAdvice.FINGER_VERSION_HEADER, fingerTable.version());
+            out.setStatus(answer.status());
+            out.setContentType(answer.contentType() == null ? MediaType.APPLICATION_JSON_VALUE : answer.contentType());
+            out.setContentLength(answer.body().length);
+            out.getOutputStream().write(answer.body());
+        } catch (IOException writeFailed) {
+            log.warn("[Passthrough] Client of {} {} gone: {}", method, pathWithQuery, writeFailed.getMessage());
+        } finally {
+            async.complete();
+        }
+    }
+
+    private void writeError(AsyncContext async, int status, String method, String pathWithQuery) {
+        HttpServletResponse out = (HttpServletResponse) async.getResponse();
+        try {
+            out.setHeader(MovedResponseAdvice.FINGER_VERSION_HEADER, fingerTable.version());
+            out.setStatus(status);
+            out.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            out.getOutputStream().write(objectMapper.writeValueAsBytes(MgrResponseDto.error(MgrResponseCode.INVALID_REMOTE_API)));
+        } catch (IOException writeFailed) {
+            log.warn("[Passthrough] Client of {} {} gone: {}", method, pathWithQuery, writeFailed.getMessage());
+        }
+    }
+
+    /**
+     * Member id or order id of a single item request, null for any other request
+     * */
+    private String routingId(HttpServletRequest request, byte[] body) throws IOException {
+        String path = request.getRequestURI();
+        switch (request.getMethod()) {
+            case "GET":
+                if (path.startsWith("/user/get/")) {
+                    return pathId(path, "/user/get/");
+                }
+                if (path.equals("/order/getOne") || path.equals("/order/history")) {
+                    return request.getParameter("orderId");
+                }
+                return null;
+            case "DELETE":
+                return path.startsWith("/user/delete/") ? pathId(path, "/user/delete/") : null;
+            case "POST":
+                if (body == null) {
+                    return null;
+                }
+                return switch (path) {
+                    case "/user/save", "/user/update" -> field(body, "id");
+                    case "/order/save" -> field(body, "orderId");
+                    case "/order/update", "/order/delete" -> field(body, "id", "orderId");
+                    default -> null;
+                };
+            default:
+                return null;
+        }
+    }
+
+    private static String pathPattern(String path) {
+        if (path.startsWith("/user/get/")) {
+            return "/user/get/{id}";
+        }
+        if (path.startsWith("/user/delete/")) {
+            return "/user/delete/{id}";
+        }
+        return path;
+    }
+
+    private static String pathId(String path, String prefix) {
+        String id = path.substring(prefix.length());
+        return id.isEmpty() || id.contains("/") ? null : UriUtils.decode(id, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * String value at the field path of the JSON body, reading tokens up to it: nothing is bound,
+     * other fields are skipped
+     * */
+    private String field(byte[] body, String... names) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            int level = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!names[level].equals(name)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (level == names.length - 1) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                if (value != JsonToken.START_OBJECT) {
+                    return null;
+                }
+                level++;
+            }
+            return null;
+        } catch (JsonProcessingException e) {
+            // malformed, the controller answers it
+            return null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.distributed.shardingjh.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.context.RequestTrace;
+import org.distributed.shardingjh.p2p.HopToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples trace.sample-rate of the requests and writes one JSON line for each of them on the "shardingjh.trace" logger,
+ * when the response is complete (after the owner answered for a forwarded request):
+ * {"id":..,"method":"POST","uri":"/order/save","status":200,"route":"forwarded","target":"127.0.0.1:8082",
+ *  "shards":["shard_order_2025"],"totalMicros":1830,"events":[{"name":"shard","atMicros":95,"detail":"shard_order_2025"},..]}
+ * route and target are the tags of http.server.requests (RoutingObservationConvention), the steps come from RequestTrace.
+ * <p>
+ * trace.async: the lines are serialized and written by one background thread from a bounded queue (trace.queue-size),
+ * a line that does not fit is dropped (trace.dropped) instead of making the request wait for the appender.
+ * Runs first, so the time of the other filters (signature bytes, passthrough) is included.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+@Order(-1)
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    private static final Logger TRACE_LOG = LoggerFactory.getLogger("shardingjh.trace");
+
+    private final ObjectMapper objectMapper;
+
+    private final double sampleRate;
+
+    private final BlockingQueue<RequestTrace> queue;
+
+    private final Counter dropped;
+
+    private final Thread writer;
+
+    public RequestTraceFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${trace.sample-rate:0}") double sampleRate,
+                              @Value("${trace.async:true}") boolean async,
+                              @Value("${trace.queue-size:4096}") int queueSize) {
+        this.objectMapper = objectMapper;
+        this.sampleRate = sampleRate;
+        this.dropped = Counter.builder("trace.dropped")
+                .description("Request trace lines dropped because the trace queue was full")
+                .register(meterRegistry);
+        if (async && sampleRate > 0) {
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.writer = new Thread(this::drain, "trace-writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.queue = null;
+            this.writer = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HopToken.REQUEST_ID_HEADER);
+        RequestTrace trace = new RequestTrace(requestId == null || requestId.isEmpty() ? UUID.randomUUID().toString() : requestId,
+                request.getMethod(), HopToken.pathWithQuery(request));
+        request.setAttribute(RequestTrace.ATTRIBUTE, trace);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // CompletableFuture controllers and passthroughs: the response completes on another thread
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(trace, request, response);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(trace, request, response);
+            }
+        }
+    }
+
+    private void finish(RequestTrace trace, HttpServletRequest request, HttpServletResponse response) {
+        Object route = request.getAttribute(RoutingObservationConvention.ROUTE_ATTRIBUTE);
+        Object target = request.getAttribute(RoutingObservationConvention.TARGET_ATTRIBUTE);
+        trace.finish(response.getStatus(), route == null ? "local" : route.toString(), target == null ? "local" : target.toString());
+        if (queue == null) {
+            write(trace);
+        } else if (!queue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // shutting down, the lines still queued are lost with the node anyway
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(RequestTrace trace) {
+        try {
+            TRACE_LOG.info(objectMapper.writeValueAsString(trace.fields()));
+        } catch (JsonProcessingException e) {
+            log.warn("[Trace] Trace {} not written: {}", trace.getId(), e.getMessage());
+        }
+    }
+}
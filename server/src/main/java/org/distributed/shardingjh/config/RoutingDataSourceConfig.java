@@ -1,5 +1,6 @@
 package org.distributed.shardingjh.config;
 
+import org.distributed.shardingjh.common.constant.ShardConst;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +14,8 @@ import java.util.Map;
  * Setting up a routing data source for sharding.
  * This class defines a bean that creates a data source capable of routing queries
  * to different underlying shards depending on the routing logic.
+ * Each shard is registered twice: the write pool under the shard key
+ * and the read-only pool under the shard key + "_read".
  * @author chris
  */
 @Configuration
@@ -22,12 +25,17 @@ public class RoutingDataSourceConfig {
     @Primary
     public DataSource dataSource(
             @Qualifier("shardCommon1DataSource") DataSource shardCommon1,
-            @Qualifier("shardCommon2DataSource") DataSource shardCommon2) {
+            @Qualifier("shardCommon1ReadDataSource") DataSource shardCommon1Read,
+            @Qualifier("shardCommon2DataSource") DataSource shardCommon2,
+            @Qualifier("shardCommon2ReadDataSource") DataSource shardCommon2Read,
+            ShardMetrics shardMetrics) {
         Map<Object, Object> targetDataSources = new HashMap<>();
         targetDataSources.put("shard_common_1", shardCommon1);
         targetDataSources.put("shard_common_2", shardCommon2);
+        targetDataSources.put("shard_common_1" + ShardConst.SHARD_READ_SUFFIX, shardCommon1Read);
+        targetDataSources.put("shard_common_2" + ShardConst.SHARD_READ_SUFFIX, shardCommon2Read);
 
-        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(shardMetrics);
         routingDataSource.setTargetDataSources(targetDataSources);
         // set the default shard to shard1
         routingDataSource.setDefaultTargetDataSource(shardCommon1);
@@ -37,13 +45,20 @@ public class RoutingDataSourceConfig {
     @Bean(name = "shardOrderRoutingDataSource")
     public DataSource dataSource2(
             @Qualifier("shardOrder2024DataSource") DataSource shardOrder2024,
+            @Qualifier("shardOrder2024ReadDataSource") DataSource shardOrder2024Read,
             @Qualifier("shardOrder2025DataSource")DataSource shardOrder2025,
-            @Qualifier("shardOrderOldDataSource") DataSource shardOrderOld) {
+            @Qualifier("shardOrder2025ReadDataSource") DataSource shardOrder2025Read,
+            @Qualifier("shardOrderOldDataSource") DataSource shardOrderOld,
+            @Qualifier("shardOrderOldReadDataSource") DataSource shardOrderOldRead,
+            ShardMetrics shardMetrics) {
         Map<Object, Object> targetDataSources = new HashMap<>();
         targetDataSources.put("shard_order_2024", shardOrder2024);
         targetDataSources.put("shard_order_2025", shardOrder2025);
         targetDataSources.put("shard_order_old", shardOrderOld);
-        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        targetDataSources.put("shard_order_2024" + ShardConst.SHARD_READ_SUFFIX, shardOrder2024Read);
+        targetDataSources.put("shard_order_2025" + ShardConst.SHARD_READ_SUFFIX, shardOrder2025Read);
+        targetDataSources.put("shard_order_old" + ShardConst.SHARD_READ_SUFFIX, shardOrderOldRead);
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(shardMetrics);
         routingDataSource.setTargetDataSources(targetDataSources);
         // set the default shard to shard1
         routingDataSource.setDefaultTargetDataSource(shardOrder2025);
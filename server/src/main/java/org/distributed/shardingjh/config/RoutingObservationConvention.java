@@ -0,0 +1,63 @@
+package org.distributed.shardingjh.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.distributed.shardingjh.context.RequestTrace;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.URI;
+
+/**
+ * Adds the routing of each request to the http.server.requests timer (one per endpoint, see management.metrics.*):
+ * - route: local (this node's shards answered), forwarded (proxied to the owner), redirect (307 to the owner),
+ *   passthrough (bytes proxied to the owner by PassthroughFilter)
+ * - target: host:port of the owner, "local", or "multiple" when the sub-batches of a batch went to several nodes
+ * e.g. /actuator/metrics/http.server.requests?tag=uri:/user/get/{id}&tag=route:forwarded
+ * Fan-out queries (/user/getAll, /order/findRange) stay local, their peers are timed by internode.forward.latency
+ * A sampled request also gets the forward as a step of its RequestTrace
+ *
+ * @author chris
+ * */
+@Component
+public class RoutingObservationConvention extends DefaultServerRequestObservationConvention {
+
+    public static final String ROUTE_ATTRIBUTE = RoutingObservationConvention.class.getName() + ".route";
+
+    public static final String TARGET_ATTRIBUTE = RoutingObservationConvention.class.getName() + ".target";
+
+    private static final String LOCAL = "local";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        HttpServletRequest request = context.getCarrier();
+        Object route = request.getAttribute(ROUTE_ATTRIBUTE);
+        Object target = request.getAttribute(TARGET_ATTRIBUTE);
+        return super.getLowCardinalityKeyValues(context).and(
+                KeyValue.of("route", route == null ? LOCAL : route.toString()),
+                KeyValue.of("target", target == null ? LOCAL : target.toString()));
+    }
+
+    /**
+     * The request being handled on this thread went to the owner, no-op outside a request (e.g. scatter-gather threads)
+     * */
+    public static void markRouted(String route, String ownerUrl) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            markRouted(attributes.getRequest(), route, ownerUrl);
+        }
+    }
+
+    public static void markRouted(HttpServletRequest request, String route, String ownerUrl) {
+        String target = URI.create(ownerUrl).getRawAuthority();
+        Object previous = request.getAttribute(TARGET_ATTRIBUTE);
+        request.setAttribute(ROUTE_ATTRIBUTE, route);
+        request.setAttribute(TARGET_ATTRIBUTE, previous == null || previous.equals(target) ? target : "multiple");
+        if (request.getAttribute(RequestTrace.ATTRIBUTE) instanceof RequestTrace trace) {
+            trace.addEvent(route, target);
+        }
+    }
+}
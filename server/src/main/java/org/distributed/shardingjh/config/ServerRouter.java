@@ -0,0 +1,469 @@
+package org.distributed.shardingjh.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.context.RequestTrace;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.p2p.HopToken;
+import org.distributed.shardingjh.p2p.OwnerMovedException;
+import org.distributed.shardingjh.p2p.PeerLatencyTracker;
+import org.distributed.shardingjh.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {
+ *  64:  "http://3.147.58.62:8081",
+ *  128: "http://3.15.149.110:8082",
+ *  192: "http://52.15.151.104:8083"
+ * }
+ * router.mode:
+ * - proxy: a request for an id owned by another node is forwarded to it (default)
+ * - redirect: the forward methods throw OwnerMovedException instead, the client gets a 307 to the owner.
+ *   Fan-out queries (forwardGetRaw / forwardGetStream) and sub-batches (forwardBatchAsync) are always proxied.
+ * router.hedge.enabled: forwarded single reads get a second request when the owner is slow (see executeHedged)
+ * Forwarded POSTs carry X-Hop-Token, the owner accepts them without checking X-Signature again (HopToken)
+ * Sub-batches also carry X-Sub-Batch, the receiving node handles them without splitting them again
+ * */
+@Slf4j
+@Component
+public class ServerRouter {
+
+    public static final String SUB_BATCH_HEADER = "X-Sub-Batch";
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    FingerTable fingerTable;
+
+    @Resource(name = "interNodeRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Resource
+    private CloseableHttpAsyncClient interNodeAsyncHttpClient;
+
+    @Resource
+    private PeerLatencyTracker peerLatencyTracker;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private HopToken hopToken;
+
+    private boolean redirectMode;
+
+    @Value("${router.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    // fires the hedges of forwardGetAsync
+    private final ScheduledExecutorService hedgeTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "hedge-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final SingleFlight<String, MgrResponseDto<Object>> forwardedReads = new SingleFlight<>("forwarded-read");
+
+    @PreDestroy
+    public void shutdown() {
+        hedgeTimer.shutdownNow();
+    }
+
+    @Value("${router.mode:proxy}")
+    public void setRouterMode(String routerMode) {
+        if (!"proxy".equals(routerMode) && !"redirect".equals(routerMode)) {
+            throw new IllegalArgumentException("Unknown router.mode: " + routerMode);
+        }
+        this.redirectMode = "redirect".equals(routerMode);
+    }
+
+    public boolean isRedirectMode() {
+        return redirectMode;
+    }
+
+    // every forward to the owner passes here, so it also tags the request's timer (RoutingObservationConvention)
+    private void redirectIfEnabled(String ownerUrl, String endpointWithQuery) {
+        RoutingObservationConvention.markRouted(redirectMode ? "redirect" : "forwarded", ownerUrl);
+        if (redirectMode) {
+            throw new OwnerMovedException(ownerUrl, ownerUrl + endpointWithQuery, fingerTable.version());
+        }
+    }
+
+    /**
+     * Route by Member id: id.hashCode() % 256
+     * @param id the id of the member
+     * @return the URL of the server to forward the request to
+     */
+    public String getMemberResponsibleServerUrl(String id) {
+        log.debug("[P2P] Routing member id: {} (hash: {})", id, FingerTable.hashOf(id));
+        // Return the first node ≥ target or wrap around to the first node
+        return FingerTable.ownerOf(fingerTable.finger, id);
+    }
+
+    /**
+     * Route by Order ID: id.hashCode() % 256
+     * @param orderId the id of the order
+     * @return the URL of the server to forward the request to
+     * */
+    public String getOrderResponsibleServerUrl(String orderId) {
+        log.debug("[P2P] Routing order id: {} (hash: {})", orderId, FingerTable.hashOf(orderId));
+        // Return the first node ≥ target or wrap around to the first node
+        return FingerTable.ownerOf(fingerTable.finger, orderId);
+    }
+
+    /**
+     * Group the items of a batch by the node owning their id (same hash as the single id routing)
+     * @param idOf member id or order id of an item
+     */
+    public <I> Map<String, List<I>> groupByOwner(Collection<I> items, Function<I, String> idOf) {
+        Map<String, List<I>> byOwner = new LinkedHashMap<>();
+        for (I item : items) {
+            byOwner.computeIfAbsent(FingerTable.ownerOf(fingerTable.finger, idOf.apply(item)), k -> new ArrayList<>()).add(item);
+        }
+        log.debug("[P2P] Batch of {} items grouped by owner: {}", items.size(), byOwner.keySet());
+        return byOwner;
+    }
+
+    /**
+     * Forward a GET request to the correct server and return raw response
+     */
+    public <T> T forwardGetRaw(String url, String endpointPath, String frontEndSignature, ParameterizedTypeReference<T> responseType) {
+        String finalUrl = url + endpointPath;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Signature", frontEndSignature);
+            HttpEntity<Void> entity = new HttpEntity<>(headers);
+            ResponseEntity<T> response = restTemplate.exchange(
+                    URI.create(finalUrl),
+                    HttpMethod.GET,
+                    entity,
+                    responseType
+            );
+            return response.getBody();
+        } catch (Exception e) {
+            log.warn("[forwardGetRaw] Failed to forward GET to {}: {}", finalUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Forward a GET request of an NDJSON stream and copy the response body to the output as it arrives,
+     * whole lines only: a line cut by a failure is not written
+     * @return false if the server could not be reached or its stream did not end cleanly,
+     * the lines before the failure are already written
+     */
+    public boolean forwardGetStream(String url, String endpointPath, String frontEndSignature, OutputStream out) {
+        String finalUrl = url + endpointPath;
+        try {
+            Boolean complete = restTemplate.execute(URI.create(finalUrl), HttpMethod.GET,
+                    request -> request.getHeaders().set("X-Signature", frontEndSignature),
+                    response -> copyLines(response.getBody(), out));
+            if (!Boolean.TRUE.equals(complete)) {
+                log.warn("[forwardGetStream] Stream from {} ended in the middle of a line", finalUrl);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("[forwardGetStream] Failed to stream GET from {}: {}", finalUrl, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copy the lines of in to out, each one once it is complete
+     * @return false if in ended with an unterminated line (dropped), every NDJSON line ends with '\n'
+     */
+    private static boolean copyLines(InputStream in, OutputStream out) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int b;
+        while ((b = buffered.read()) != -1) {
+            line.write(b);
+            if (b == '\n') {
+                line.writeTo(out);
+                line.reset();
+            }
+        }
+        return line.size() == 0;
+    }
+
+    /**
+     * Non-blocking forward of a POST request.
+     * The future completes on an I/O thread of the async client when the server answers,
+     * no request thread waits in between.
+     * When the request being handled is this same POST, its body goes out as received (InboundBodyFilter),
+     * requestBody is only serialized otherwise.
+     */
+    public <T> CompletableFuture<MgrResponseDto<T>> forwardPostAsync(String serverUrl, String endpointPath, String fronEndSignature, Object requestBody) throws JsonProcessingException {
+        redirectIfEnabled(serverUrl, endpointPath);
+        byte[] body = inboundBodyOf(endpointPath);
+        if (body == null) {
+            body = objectMapper.writeValueAsBytes(requestBody);
+        }
+        return executeAsync(signedPost(serverUrl, endpointPath, fronEndSignature, body)).thenApply(this::readResponse);
+    }
+
+    /**
+     * POST to another node with the client's signature and a hop token over the body
+     */
+    private SimpleHttpRequest signedPost(String serverUrl, String endpointPath, String signature, byte[] body) {
+        String requestId = hopToken.requestId();
+        return SimpleRequestBuilder.post(serverUrl + endpointPath)
+                .setHeader("X-Signature", signature)
+                .setHeader(HopToken.REQUEST_ID_HEADER, requestId)
+                .setHeader(HopToken.HEADER, hopToken.issue(requestId, "POST", endpointPath, body))
+                .setBody(body, ContentType.APPLICATION_JSON)
+                .build();
+    }
+
+    private static byte[] inboundBodyOf(String endpointPath) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && endpointPath.equals(attributes.getRequest().getRequestURI())) {
+            return InboundBodyFilter.currentBody();
+        }
+        return null;
+    }
+
+    /**
+     * Owner's answer to a passthrough request, as bytes
+     */
+    public record RawResponse(int status, String contentType, byte[] body) {}
+
+    /**
+     * Non-blocking forward of a request as bytes (PassthroughFilter): the body is sent as received and
+     * the owner's status and body come back as they are, error statuses included.
+     * Nothing is parsed on this node, the owner checks X-Signature
+     */
+    public CompletableFuture<RawResponse> forwardRawAsync(String serverUrl, String method, String pathWithQuery,
+                                                          String signature, byte[] body) {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.create(method)
+                .setUri(serverUrl + pathWithQuery)
+                .setHeader(PassthroughFilter.PASSTHROUGH_HEADER, "1");
+        if (signature != null) {
+            builder.setHeader("X-Signature", signature);
+        }
+        if (body != null && body.length > 0) {
+            builder.setBody(body, ContentType.APPLICATION_JSON);
+        }
+        return executeAsync(builder.build()).handle((response, e) -> {
+            if (e == null) {
+                ContentType contentType = response.getContentType();
+                return new RawResponse(response.getCode(), contentType == null ? null : contentType.toString(), response.getBodyBytes());
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RestClientResponseException error) {
+                return new RawResponse(error.getStatusCode().value(), null, error.getResponseBodyAsByteArray());
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Non-blocking forward of a sub-batch to the node owning its items.
+     * A batch spans several owners, so it is proxied in redirect mode too
+     */
+    public <T> CompletableFuture<MgrResponseDto<List<T>>> forwardBatchAsync(String serverUrl, String endpointPath, String signature,
+                                                                           Object subBatch, Class<T> itemType) throws JsonProcessingException {
+        RoutingObservationConvention.markRouted("forwarded", serverUrl);
+        SimpleHttpRequest request = signedPost(serverUrl, endpointPath, signature, objectMapper.writeValueAsBytes(subBatch));
+        request.setHeader(SUB_BATCH_HEADER, "1");
+        JavaType type = objectMapper.getTypeFactory().constructParametricType(MgrResponseDto.class,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, itemType));
+        return executeAsync(request).thenApply(response -> {
+            try {
+                return objectMapper.readValue(response.getBodyBytes(), type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * The request being handled is a sub-batch another node split off (forwardBatchAsync), with a valid hop token.
+     * It is handled on this node as it is and never split again, so nodes whose rings disagree cannot bounce it
+     */
+    public boolean isForwardedSubBatch() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getRequest().getHeader(SUB_BATCH_HEADER) != null
+                && hopToken.trustsCurrentRequest();
+    }
+
+    /**
+     * Non-blocking forward of a GET request with query params
+     * Only used by idempotent reads (/user/get, /order/getOne, /order/history), so with router.hedge.enabled
+     * a second request is sent when the first one is slower than the peer's usual latency.
+     * Identical reads forwarded while one is in flight share its response
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<MgrResponseDto<T>> forwardGetAsync(String url, String endpointWithQuery, String fronEndSignature) {
+        redirectIfEnabled(url, endpointWithQuery);
+        Supplier<SimpleHttpRequest> request = () -> SimpleRequestBuilder.get(url + endpointWithQuery)
+                .setHeader("X-Signature", fronEndSignature)
+                .build();
+        return (CompletableFuture<MgrResponseDto<T>>) (CompletableFuture<?>) forwardedReads.execute(url + endpointWithQuery + "|" + fronEndSignature,
+                () -> (hedgeEnabled ? executeHedged(request) : executeAsync(request.get())).thenApply(this::readResponse));
+    }
+
+    /**
+     * Hedged request: if the owner has not answered after its hedge delay (PeerLatencyTracker),
+     * the same request is sent again on another pooled connection and the first answer wins, the other one is cancelled.
+     * The hedge goes to the owner itself: members and orders are not replicated,
+     * the ring successor (FingerTable.getNextNodeAfter) would only forward it back to the owner.
+     * A failure before the hedge is sent fails the request, hedging is not a retry.
+     * A primary cancelled because the hedge won still counts in the peer's latency with the time it had run
+     * (a lower bound), so the hedge delay is not taken from the fast answers only.
+     */
+    private CompletableFuture<SimpleHttpResponse> executeHedged(Supplier<SimpleHttpRequest> request) {
+        SimpleHttpRequest primary = request.get();
+        String peer = primary.getAuthority().toString();
+        long start = System.nanoTime();
+        CompletableFuture<SimpleHttpResponse> winner = new CompletableFuture<>();
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+        AtomicInteger failures = new AtomicInteger();
+
+        CompletableFuture<SimpleHttpResponse> first = executeAsync(primary);
+        first.whenComplete((response, e) -> {
+            if (e == null) {
+                winner.complete(response);
+            } else if (!hedgeSent.get() || failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(e);
+            }
+        });
+        ScheduledFuture<?> hedge = hedgeTimer.schedule(() -> {
+            if (winner.isDone() || !hedgeSent.compareAndSet(false, true)) {
+                return;
+            }
+            meterRegistry.counter("internode.forward.hedged", "peer", peer).increment();
+            CompletableFuture<SimpleHttpResponse> second = executeAsync(request.get());
+            second.whenComplete((response, e) -> {
+                if (e == null) {
+                    if (winner.complete(response)) {
+                        meterRegistry.counter("internode.forward.hedge.wins", "peer", peer).increment();
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(e);
+                }
+            });
+            winner.whenComplete((response, e) -> second.cancel(false));
+        }, peerLatencyTracker.hedgeDelayMs(peer), TimeUnit.MILLISECONDS);
+        winner.whenComplete((response, e) -> {
+            hedge.cancel(false);
+            if (first.cancel(false)) {
+                // the cancelled hedge is not recorded, it only ran for part of the primary's time
+                peerLatencyTracker.record(peer, System.nanoTime() - start);
+            }
+        });
+        return winner;
+    }
+
+    /**
+     * Non-blocking forward of a DELETE request
+     */
+    public CompletableFuture<Void> forwardDeleteAsync(String url, String endpointPath, String fronEndSignature) {
+        redirectIfEnabled(url, endpointPath);
+        SimpleHttpRequest request = SimpleRequestBuilder.delete(url + endpointPath)
+                .setHeader("X-Signature", fronEndSignature)
+                .build();
+        return executeAsync(request).thenApply(response -> null);
+    }
+
+    /**
+     * Same failure semantics as the RestTemplate methods: a 4xx / 5xx answer or an I/O error fails the future
+     */
+    private CompletableFuture<SimpleHttpResponse> executeAsync(SimpleHttpRequest request) {
+        CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        // taken on the request thread, the callbacks run on an I/O thread
+        RequestTrace trace = RequestTrace.current();
+        Future<SimpleHttpResponse> call = interNodeAsyncHttpClient.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                peerLatencyTracker.record(request.getAuthority().toString(), System.nanoTime() - start);
+                if (trace != null) {
+                    trace.addEvent("answer", request.getAuthority() + " " + response.getCode());
+                }
+                if (response.getCode() >= 400) {
+                    future.completeExceptionally(new RestClientResponseException(
+                            request.getMethod() + " " + request.getRequestUri() + " returned " + response.getCode(),
+                            response.getCode(), response.getReasonPhrase(), null, response.getBodyBytes(), null));
+                    return;
+                }
+                future.complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                log.warn("[P2P] Failed to forward {} {}: {}", request.getMethod(), request.getRequestUri(), e.getMessage());
+                if (trace != null) {
+                    trace.addEvent("failed", request.getAuthority() + " " + e.getMessage());
+                }
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        // Cancelling the future (e.g. the losing request of a hedge) aborts the exchange
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> MgrResponseDto<T> readResponse(SimpleHttpResponse response) {
+        try {
+            return objectMapper.readValue(response.getBodyBytes(), MgrResponseDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
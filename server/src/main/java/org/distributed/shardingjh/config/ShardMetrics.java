@@ -0,0 +1,88 @@
+package org.distributed.shardingjh.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Meters per shard key, next to the hikaricp.* meters of each pool (pool name = shard key):
+ * - shard.routed{shard, access}: connections taken from a shard by ShardRoutingDataSource, access read or write.
+ *   shard is "default" when no shard key was set and the default target served it
+ * - order.update.attempts{shard, attempt, outcome}: attempts of an MVCC order update, outcome committed / locked / conflict / failed.
+ *   Group committed updates (OrderGroupCommitter.submitUpdate) try the batch transaction, then their own one;
+ *   the manual transaction of OrderServiceImpl.updateWithRetryAndRollback up to three times
+ * - order.mvcc.conflicts{shard}: updates rejected because the expected version is no longer the current one
+ * - sqlite.busy{shard, code}: writes failed on SQLITE_BUSY / SQLITE_LOCKED
+ * e.g. /actuator/metrics/shard.routed?tag=shard:shard_order_2025
+ *
+ * @author chris
+ * */
+@Component
+public class ShardMetrics {
+
+    private static final String DEFAULT_SHARD = "default";
+
+    private final MeterRegistry meterRegistry;
+
+    // looked up on every connection, so the counters are kept instead of asking the registry each time
+    private final ConcurrentHashMap<String, Counter> writeRoutes = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Counter> readRoutes = new ConcurrentHashMap<>();
+
+    public ShardMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void routed(String shardKey, boolean readOnly) {
+        String shard = shardKey == null ? DEFAULT_SHARD : shardKey;
+        (readOnly ? readRoutes : writeRoutes).computeIfAbsent(shard, s -> Counter.builder("shard.routed")
+                .description("Connections routed to a shard")
+                .tag("shard", s)
+                .tag("access", readOnly ? "read" : "write")
+                .register(meterRegistry)).increment();
+    }
+
+    public void updateAttempt(String shardKey, int attempt, String outcome) {
+        meterRegistry.counter("order.update.attempts",
+                "shard", shardKey, "attempt", String.valueOf(attempt), "outcome", outcome).increment();
+    }
+
+    public void mvccConflict(String shardKey) {
+        meterRegistry.counter("order.mvcc.conflicts", "shard", shardKey).increment();
+    }
+
+    /**
+     * Count the failure if SQLite reported the database busy or locked anywhere in its causes
+     * @return whether it did
+     * */
+    public boolean sqliteBusy(String shardKey, Throwable failure) {
+        SQLiteErrorCode code = busyCode(failure);
+        if (code == null) {
+            return false;
+        }
+        meterRegistry.counter("sqlite.busy", "shard", shardKey, "code", code.name()).increment();
+        return true;
+    }
+
+    /**
+     * SQLITE_BUSY or SQLITE_LOCKED (extended codes folded into them) found in the causes, null otherwise
+     * */
+    static SQLiteErrorCode busyCode(Throwable failure) {
+        for (Throwable e = failure; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof SQLiteException sqlite && sqlite.getResultCode() != null) {
+                int primary = sqlite.getResultCode().code & 0xff;
+                if (primary == SQLiteErrorCode.SQLITE_BUSY.code) {
+                    return SQLiteErrorCode.SQLITE_BUSY;
+                }
+                if (primary == SQLiteErrorCode.SQLITE_LOCKED.code) {
+                    return SQLiteErrorCode.SQLITE_LOCKED;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+package org.distributed.shardingjh.config;
+
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.distributed.shardingjh.context.ShardContext;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Dynamically route db operations to the right shard based on shard key
+ * Read-only operations go to the shard's read pool, e.g. "shard_common_1_read"
+ * Every routed connection is counted per shard (ShardMetrics)
+ * @author chris
+ * */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardMetrics shardMetrics;
+
+    public ShardRoutingDataSource(ShardMetrics shardMetrics) {
+        this.shardMetrics = shardMetrics;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // e.g., "shard1"
+        String shardKey = ShardContext.getCurrentShard();
+        boolean readOnly = shardKey != null && ShardContext.isReadOnly();
+        shardMetrics.routed(shardKey, readOnly);
+        if (readOnly) {
+            return shardKey + ShardConst.SHARD_READ_SUFFIX;
+        }
+        return shardKey;
+    }
+}
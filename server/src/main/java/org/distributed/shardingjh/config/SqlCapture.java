@@ -0,0 +1,38 @@
+package org.distributed.shardingjh.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statement inspector of the order persistence unit: records the SQL Hibernate prepares on this thread
+ * while capture() runs, so a query plan is taken of the statement a repository method really sends.
+ * Outside capture() it only hands the SQL back.
+ *
+ * @author chris
+ * */
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    public static List<String> capture(Runnable work) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            work.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured;
+    }
+}
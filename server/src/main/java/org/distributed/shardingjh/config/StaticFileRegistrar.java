@@ -29,7 +29,8 @@ public class StaticFileRegistrar {
     @Resource
     private FingerTable fingerTable;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Resource(name = "interNodeRestTemplate")
+    private RestTemplate restTemplate;
 
     @PostConstruct
     public void loadStaticFiles() throws IOException {
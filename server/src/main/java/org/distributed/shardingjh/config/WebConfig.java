@@ -0,0 +1,49 @@
+package org.distributed.shardingjh.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.controller.MovedResponseAdvice;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig {
+    @Bean
+    public WebMvcConfigurer corsConfigurer(FingerTable fingerTable) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addCorsMappings(CorsRegistry registry) {
+                registry.addMapping("/**") // Allow all paths
+                        .allowedOrigins("*") // Allow all origins
+                        .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                        .allowedHeaders("*");
+            }
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new HandlerInterceptor() {
+                    // Ring version on every response, clients caching the ring (ShardingJhClient) refresh when it changes
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                        response.setHeader(MovedResponseAdvice.FINGER_VERSION_HEADER, fingerTable.version());
+                        return true;
+                    }
+
+                    // A shard key left behind by a request must not route the next request served by the same thread.
+                    // Needed with pooled platform threads, harmless with one virtual thread per request
+                    @Override
+                    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                                Object handler, Exception ex) {
+                        ShardContext.clear();
+                    }
+                });
+            }
+        };
+    }
+}
\ No newline at end of file
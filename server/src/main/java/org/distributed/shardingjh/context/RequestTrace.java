@@ -0,0 +1,117 @@
+package org.distributed.shardingjh.context;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+* Trace of one sampled request: shards it was routed to, where it was forwarded and when each step happened.
+* Started and written as one line by RequestTraceFilter (trace.sample-rate), the hot paths record into it
+* instead of logging every step at INFO. Outside a sampled request the static methods do nothing.
+* Steps recorded after the request thread left (e.g. the owner's answer, on an I/O thread) go through the instance.
+* @author chris
+*/
+public class RequestTrace {
+
+    public static final String ATTRIBUTE = RequestTrace.class.getName();
+
+    private final String id;
+
+    private final String method;
+
+    private final String uri;
+
+    private final long startNanos = System.nanoTime();
+
+    private final Set<String> shards = new LinkedHashSet<>();
+
+    private final List<Map<String, Object>> events = new ArrayList<>();
+
+    private int status;
+
+    private String route;
+
+    private String target;
+
+    private long totalMicros;
+
+    public RequestTrace(String id, String method, String uri) {
+        this.id = id;
+        this.method = method;
+        this.uri = uri;
+    }
+
+    // The trace of the request being handled on this thread, null when it is not sampled
+    public static RequestTrace current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (RequestTrace) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    // A shard key resolved for the current request
+    public static void shard(String shardKey) {
+        RequestTrace trace = current();
+        if (trace != null) {
+            trace.addShard(shardKey);
+        }
+    }
+
+    // A step of the current request, with the time since the request started
+    public static void event(String name, Object detail) {
+        RequestTrace trace = current();
+        if (trace != null) {
+            trace.addEvent(name, detail);
+        }
+    }
+
+    public synchronized void addShard(String shardKey) {
+        if (shards.add(shardKey)) {
+            addEvent("shard", shardKey);
+        }
+    }
+
+    public synchronized void addEvent(String name, Object detail) {
+        Map<String, Object> event = new LinkedHashMap<>(4);
+        event.put("name", name);
+        event.put("atMicros", elapsedMicros());
+        event.put("detail", String.valueOf(detail));
+        events.add(event);
+    }
+
+    // Called once, when the response is complete
+    public synchronized void finish(int status, String route, String target) {
+        this.status = status;
+        this.route = route;
+        this.target = target;
+        this.totalMicros = elapsedMicros();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Fields of the trace line
+    public synchronized Map<String, Object> fields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", id);
+        fields.put("method", method);
+        fields.put("uri", uri);
+        fields.put("status", status);
+        fields.put("route", route);
+        fields.put("target", target);
+        fields.put("shards", new ArrayList<>(shards));
+        fields.put("totalMicros", totalMicros);
+        fields.put("events", new ArrayList<>(events));
+        return fields;
+    }
+
+    private long elapsedMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+}
@@ -2,15 +2,25 @@ package org.distributed.shardingjh.context;
 
 /*
 * Uses ThreadLocal<String> to store the current shard key.
+* A second ThreadLocal marks read-only work so it is routed to the shard's read pool.
 * @author chris
 */
 public class ShardContext {
     private static final ThreadLocal<String> context = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> readOnly = new ThreadLocal<>();
 
     // Before any DB operation, set the shard key
     // Default is "shard1"
     public static void setCurrentShard(String shardKey) {
         context.set(shardKey);
+        readOnly.remove();
+    }
+
+    // Same as setCurrentShard, but the DB operations only read
+    // and are served by the read-only pool of the shard
+    public static void setCurrentShardForRead(String shardKey) {
+        context.set(shardKey);
+        readOnly.set(Boolean.TRUE);
     }
 
     // Get the current shard key for the current thread/request
@@ -18,8 +28,14 @@ public class ShardContext {
         return context.get();
     }
 
+    // Whether the current thread/request only reads from the shard
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(readOnly.get());
+    }
+
     // Clear the shard key after the DB operation is done
     public static void clear() {
         context.remove();
+        readOnly.remove();
     }
 }
@@ -0,0 +1,46 @@
+package org.distributed.shardingjh.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.response.MgrResponseCode;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.p2p.OwnerMovedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Redirect mode: a node that does not own the id answers 307 instead of proxying.
+ * 307 keeps the method and the body, so a POST is resent as is to Location.
+ * The owner and the ring version are also in the headers and the body, for clients caching the ring.
+ *
+ * @author chris
+ * */
+@Slf4j
+@RestControllerAdvice
+public class MovedResponseAdvice {
+
+    public static final String OWNER_HEADER = "X-Owner-Url";
+
+    public static final String FINGER_VERSION_HEADER = "X-Finger-Version";
+
+    @ExceptionHandler(OwnerMovedException.class)
+    public ResponseEntity<MgrResponseDto<Map<String, String>>> moved(OwnerMovedException e) {
+        log.debug("[P2P] Redirecting client to owner: {}", e.getLocation());
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("ownerUrl", e.getOwnerUrl());
+        data.put("location", e.getLocation());
+        data.put("fingerVersion", e.getFingerVersion());
+        MgrResponseDto<Map<String, String>> body = MgrResponseDto.error(MgrResponseCode.MOVED);
+        body.setData(data);
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .location(URI.create(e.getLocation()))
+                .header(OWNER_HEADER, e.getOwnerUrl())
+                .header(FINGER_VERSION_HEADER, e.getFingerVersion())
+                .body(body);
+    }
+}
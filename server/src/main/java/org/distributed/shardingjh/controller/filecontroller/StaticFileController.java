@@ -38,7 +38,8 @@ public class StaticFileController {
     @Value("${router.server-url}")
     private String CURRENT_NODE_URL;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Resource(name = "interNodeRestTemplate")
+    private RestTemplate restTemplate;
 
     // Note: This method is not used in the current implementation
     @RequestMapping(value = "/static/lookup-meta", method = RequestMethod.GET)
@@ -2,12 +2,16 @@ package org.distributed.shardingjh.controller.gossip;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.distributed.shardingjh.gossip.GossipService;
 import org.distributed.shardingjh.p2p.FingerTable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,17 +31,29 @@ public class GossipManagementController {
 
     /**
      * Get current finger table status
+     * The ETag is the ring version: clients caching the ring send If-None-Match and get a 304 while it is unchanged
      */
     @GetMapping("/finger-table")
-    public ResponseEntity<Map<String, Object>> getFingerTable() {
+    public ResponseEntity<Map<String, Object>> getFingerTable(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            Map<Integer, String> snapshot = new TreeMap<>(fingerTable.finger);
+            String version = FingerTable.versionOf(snapshot);
+            String eTag = "\"" + version + "\"";
+            if (eTag.equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
             Map<String, Object> response = new HashMap<>();
-            response.put("fingerTable", fingerTable.finger);
-            response.put("size", fingerTable.finger.size());
+            response.put("fingerTable", snapshot);
+            response.put("size", snapshot.size());
+            response.put("version", version);
             response.put("timestamp", System.currentTimeMillis());
             
-            log.info("[GossipManagement] Finger table requested via API: {}", fingerTable.finger);
-            return ResponseEntity.ok(response);
+            log.info("[GossipManagement] Finger table requested via API: {}", snapshot);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(response);
         } catch (Exception e) {
             log.error("[GossipManagement] Error getting finger table: {}", e.getMessage());
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
@@ -0,0 +1,241 @@
+package org.distributed.shardingjh.controller.usercontroller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.response.BatchMerger;
+import org.distributed.shardingjh.common.response.MgrResponseCode;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.config.ServerRouter;
+import org.distributed.shardingjh.model.Member;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.distributed.shardingjh.service.Impl.MemberServiceImpl;
+import org.distributed.shardingjh.util.SignatureVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Default coordinator server is 0
+ * Forwarding requests to the correct server based on the id
+ * Single member endpoints return a CompletableFuture: a forwarded request releases the request thread
+ * until the responsible server answers, a local one is already completed.
+ * */
+@Slf4j
+@RestController
+public class MemberController {
+
+    @Resource
+    MemberServiceImpl memberServiceImpl;
+
+    @Resource
+    ServerRouter serverRouter;
+
+    @Value("${router.server-url}")
+    private String CURRENT_NODE_URL;
+
+    @Resource
+    SignatureVerifier signatureVerifier;
+
+    @Resource
+    FingerTable fingerTable;
+
+    @Resource
+    ScatterGather scatterGather;
+
+    @RequestMapping(value = "/user/save", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<Member>> saveMember(@RequestBody Member member,
+                                                                @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        // Check signature
+        if (!signatureVerifier.verifyBody(member, signature)) {
+            log.error("Signature mismatch for member: {}", member.getId());
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+
+        String responsibleUrl = serverRouter.getMemberResponsibleServerUrl(member.getId());
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            try {
+                return serverRouter.forwardPostAsync(responsibleUrl, "/user/save", signature, member);
+            } catch (JsonProcessingException e) {
+                return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.JSON_PARSE_ERROR));
+            }
+        }
+        Member newMember = memberServiceImpl.saveMember(member);
+        return CompletableFuture.completedFuture(MgrResponseDto.success(newMember));
+    }
+
+    @RequestMapping(value = "/user/get/{id}", method = RequestMethod.GET)
+    public CompletableFuture<MgrResponseDto<Member>> getOneMember(@PathVariable String id, @RequestHeader(value = "X-Signature") String signature) {
+        //check signature
+        String endPointPath = "/user/get/" + id;
+        if (!signatureVerifier.verifyPath(endPointPath, signature)) {
+            log.error("Signature mismatch for user query: user={}", id);
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+
+        String responsibleUrl = serverRouter.getMemberResponsibleServerUrl(id);
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            // forward the request to the correct server
+            return serverRouter.forwardGetAsync(responsibleUrl, "/user/get/" + id, signature);
+        }
+        Member member = memberServiceImpl.findById(id);
+        if (member == null) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.MEMBER_NOT_FOUND));
+        }
+        return CompletableFuture.completedFuture(MgrResponseDto.success(member));
+    }
+
+    /**
+     * Save many members: grouped by owner, one sub-batch per other owner sent at the same time,
+     * the local group is saved with one transaction per shard.
+     * A sub-batch sent by another node is saved here as it is
+     * */
+    @RequestMapping(value = "/user/saveBatch", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<List<Member>>> saveMembers(@RequestBody MemberBatchRequest batch,
+                                                                       @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        if (batch.getMembers() == null) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.PARAM_INVALID));
+        }
+        // Check signature
+        if (!signatureVerifier.verifyBody(batch, signature)) {
+            log.error("Signature mismatch for member batch of {}", batch.getMembers().size());
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+        if (serverRouter.isForwardedSubBatch()) {
+            // the node that split the batch found these members ours
+            return CompletableFuture.completedFuture(MgrResponseDto.success(memberServiceImpl.saveMembers(batch.getMembers())));
+        }
+
+        Map<String, List<Member>> byOwner = serverRouter.groupByOwner(batch.getMembers(), Member::getId);
+        Map<String, CompletableFuture<MgrResponseDto<List<Member>>>> forwarded = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Member>> group : byOwner.entrySet()) {
+            if (!CURRENT_NODE_URL.equals(group.getKey())) {
+                // the sub-batch is a different body, so it gets its own signature
+                MemberBatchRequest subBatch = new MemberBatchRequest();
+                subBatch.setMembers(group.getValue());
+                String subSignature = signatureVerifier.signBody(subBatch);
+                forwarded.put(group.getKey(), serverRouter.forwardBatchAsync(group.getKey(), "/user/saveBatch", subSignature, subBatch, Member.class));
+            }
+        }
+        List<Member> local = memberServiceImpl.saveMembers(byOwner.getOrDefault(CURRENT_NODE_URL, List.of()));
+        return BatchMerger.merge(local, forwarded);
+    }
+
+    /**
+     * Get many members by id, same grouping as /user/saveBatch. Ids that are not found are left out.
+     * A sub-batch sent by another node is looked up here as it is
+     * */
+    @RequestMapping(value = "/user/getBatch", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<List<Member>>> getMembers(@RequestBody MemberIdsRequest batch,
+                                                                      @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        if (batch.getIds() == null) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.PARAM_INVALID));
+        }
+        // Check signature
+        if (!signatureVerifier.verifyBody(batch, signature)) {
+            log.error("Signature mismatch for member query of {} ids", batch.getIds().size());
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+        if (serverRouter.isForwardedSubBatch()) {
+            return CompletableFuture.completedFuture(MgrResponseDto.success(memberServiceImpl.findByIds(batch.getIds())));
+        }
+
+        Map<String, List<String>> byOwner = serverRouter.groupByOwner(batch.getIds(), id -> id);
+        Map<String, CompletableFuture<MgrResponseDto<List<Member>>>> forwarded = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> group : byOwner.entrySet()) {
+            if (!CURRENT_NODE_URL.equals(group.getKey())) {
+                MemberIdsRequest subBatch = new MemberIdsRequest();
+                subBatch.setIds(group.getValue());
+                String subSignature = signatureVerifier.signBody(subBatch);
+                forwarded.put(group.getKey(), serverRouter.forwardBatchAsync(group.getKey(), "/user/getBatch", subSignature, subBatch, Member.class));
+            }
+        }
+        List<Member> local = memberServiceImpl.findByIds(byOwner.getOrDefault(CURRENT_NODE_URL, List.of()));
+        return BatchMerger.merge(local, forwarded);
+    }
+
+    @RequestMapping(value = "/user/getAll", method = RequestMethod.GET)
+    public MgrResponseDto<List<Member>> getAllMembers(@RequestHeader(value = "X-Signature") String signature) {
+        // Check signature
+        String endPointPath = "/user/getAll";
+        if (!signatureVerifier.verifyPath(endPointPath, signature)) {
+            log.error("Signature mismatch for get all members request");
+            return MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST);
+        }
+
+
+        // Local shards and all other nodes at the same time
+        Map<String, Callable<List<Member>>> sources = new LinkedHashMap<>(memberServiceImpl.allMembersSources());
+        for (String node : new LinkedHashSet<>(fingerTable.finger.values())) {
+            if (!node.equals(CURRENT_NODE_URL)) {
+                sources.put(node, () -> serverRouter.forwardGetRaw(
+                        node, "/user/getAllLocal", signature, new ParameterizedTypeReference<List<Member>>() {}));
+            }
+        }
+        ScatterGather.Result<Member> result = scatterGather.gather(sources);
+        List<Member> all = result.getItems();
+        log.debug("Size of all members: {}", all.size());
+        return result.isPartial() ? MgrResponseDto.partial(all, result.getMissing()) : MgrResponseDto.success(all);
+    }
+
+    /**
+     * Internal endpoint for testing
+     * */
+    @RequestMapping(value = "/user/getAllLocal", method = RequestMethod.GET)
+    public List<Member> getAllMembersLocal(@RequestHeader(value = "X-Signature", required = false) String signature) {
+        return memberServiceImpl.findAllMembers();
+    }
+
+    @RequestMapping(value = "/user/update", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<Member>> updateMember(@RequestBody Member member,
+                                                                  @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        // Check signature
+        if (!signatureVerifier.verifyBody(member, signature)) {
+            log.error("Signature mismatch for user update: user={}", member.getId());
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+        // Determine the responsible server for this member
+        String responsibleUrl = serverRouter.getMemberResponsibleServerUrl(member.getId());
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            // forward the request to the correct server
+            try {
+                return serverRouter.forwardPostAsync(responsibleUrl, "/user/update", signature, member);
+            } catch (JsonProcessingException e) {
+                return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.JSON_PARSE_ERROR));
+            }
+        }
+        Member updatedMember = memberServiceImpl.updateMember(member);
+        if (updatedMember == null) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.MEMBER_NAME_INVALID));
+        }
+        return CompletableFuture.completedFuture(MgrResponseDto.success(updatedMember));
+    }
+
+    @RequestMapping(value = "/user/delete/{id}", method = RequestMethod.DELETE)
+    public CompletableFuture<MgrResponseDto<String>> deleteMember(@PathVariable String id,
+                                                                  @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        // Check signature
+        String endPointPath = "/user/delete/" + id;
+        if (!signatureVerifier.verifyPath(endPointPath, signature)) {
+            log.error("Signature mismatch for user delete: user={}", id);
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+
+        String responsibleUrl = serverRouter.getMemberResponsibleServerUrl(id);
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            // forward the request to the correct server
+            return serverRouter.forwardDeleteAsync(responsibleUrl, "/user/delete/" + id, signature)
+                    .thenApply(done -> MgrResponseDto.success("User deleted successfully"));
+        }
+        memberServiceImpl.deleteMember(id);
+        return CompletableFuture.completedFuture(MgrResponseDto.success("User deleted successfully"));
+    }
+}
@@ -0,0 +1,454 @@
+package org.distributed.shardingjh.controller.usercontroller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.response.BatchMerger;
+import org.distributed.shardingjh.common.response.MgrResponseCode;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.config.ServerRouter;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.p2p.OwnerMovedException;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.distributed.shardingjh.repository.order.OrderAggregate;
+import org.distributed.shardingjh.repository.order.OrderPage;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.service.Impl.OrderServiceImpl;
+import org.distributed.shardingjh.util.SignatureVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Single order endpoints return a CompletableFuture: a forwarded request releases the request thread
+ * until the responsible server answers, a local one is already completed.
+ * */
+@Slf4j
+@RestController
+public class OrderController {
+
+    @Resource
+    OrderServiceImpl orderServiceImpl;
+
+    @Resource
+    ServerRouter serverRouter;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Value("${router.server-url}")
+    private String CURRENT_NODE_URL;
+
+    @Resource
+    SignatureVerifier signatureVerifier;
+
+    @Resource
+    FingerTable fingerTable;
+
+    @Resource
+    ScatterGather scatterGather;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @RequestMapping(value = "/order/save", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<OrderTable>> saveOrder(@RequestBody RequestOrder requestOrder,
+                                                                   @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        // Check signature
+        if (!signatureVerifier.verifyBody(requestOrder, signature)) {
+            log.error("Signature mismatch for order: {}", requestOrder.getOrderId());
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+
+        // Determine responsible server
+        String responsibleUrl = serverRouter.getOrderResponsibleServerUrl(requestOrder.getOrderId());
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            // forward the request to the correct server
+            return serverRouter.forwardPostAsync(responsibleUrl, "/order/save", signature, requestOrder);
+
+        }
+        OrderTable order = orderServiceImpl.saveOrder(requestOrder);
+        return CompletableFuture.completedFuture(MgrResponseDto.success(order));
+    }
+
+    /**
+     * Save many orders: grouped by owner, one sub-batch per other owner sent at the same time,
+     * the local group is written with one transaction per year shard.
+     * Orders without an orderId get one before they are grouped.
+     * A sub-batch sent by another node is saved here as it is
+     * */
+    @RequestMapping(value = "/order/saveBatch", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<List<OrderTable>>> saveOrders(@RequestBody OrderBatchRequest batch,
+                                                                          @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        if (batch.getOrders() == null) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.PARAM_INVALID));
+        }
+        // Check signature
+        if (!signatureVerifier.verifyBody(batch, signature)) {
+            log.error("Signature mismatch for order batch of {}", batch.getOrders().size());
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+        if (serverRouter.isForwardedSubBatch()) {
+            // the node that split the batch gave every order an id and found them ours
+            return CompletableFuture.completedFuture(MgrResponseDto.success(orderServiceImpl.saveOrders(batch.getOrders())));
+        }
+
+        for (RequestOrder requestOrder : batch.getOrders()) {
+            if (requestOrder.getOrderId() == null) {
+                requestOrder.generateOrderId();
+            }
+        }
+        Map<String, List<RequestOrder>> byOwner = serverRouter.groupByOwner(batch.getOrders(), RequestOrder::getOrderId);
+        Map<String, CompletableFuture<MgrResponseDto<List<OrderTable>>>> forwarded = new LinkedHashMap<>();
+        for (Map.Entry<String, List<RequestOrder>> group : byOwner.entrySet()) {
+            if (!CURRENT_NODE_URL.equals(group.getKey())) {
+                // the sub-batch is a different body, so it gets its own signature
+                OrderBatchRequest subBatch = new OrderBatchRequest();
+                subBatch.setOrders(group.getValue());
+                String subSignature = signatureVerifier.signBody(subBatch);
+                forwarded.put(group.getKey(), serverRouter.forwardBatchAsync(group.getKey(), "/order/saveBatch", subSignature, subBatch, OrderTable.class));
+            }
+        }
+        List<OrderTable> local = orderServiceImpl.saveOrders(byOwner.getOrDefault(CURRENT_NODE_URL, List.of()));
+        return BatchMerger.merge(local, forwarded);
+    }
+
+    @RequestMapping(value = "/order/delete", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<String>> deleteOrder(@RequestBody OrderTable order,
+                                                                 @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        // Check signature
+        if (!signatureVerifier.verifyBody(order, signature)) {
+            log.error("Signature mismatch for order deletion: {}", order.getId().getOrderId());
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+
+        // Determine responsible server
+        String responsibleUrl = serverRouter.getOrderResponsibleServerUrl(order.getId().getOrderId());
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            // forward the request to the correct server
+            return serverRouter.forwardPostAsync(responsibleUrl, "/order/delete", signature, order);
+
+        }
+        orderServiceImpl.deleteOrder(order);
+        return CompletableFuture.completedFuture(MgrResponseDto.success("Order deleted successfully"));
+    }
+
+    @RequestMapping(value = "/order/update", method = RequestMethod.POST)
+    public CompletableFuture<MgrResponseDto<OrderTable>> updateOrder(@RequestBody OrderTable order,
+                                                                     @RequestHeader(value = "X-Signature") String signature) throws JsonProcessingException {
+        try {
+            // Check signature
+            if (!signatureVerifier.verifyBody(order, signature)) {
+                log.error("Signature mismatch for order update: {}", order.getId().getOrderId());
+                return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+            }
+
+            // Determine responsible server
+            String responsibleUrl = serverRouter.getOrderResponsibleServerUrl(order.getId().getOrderId());
+            if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+                // forward the request to the correct server
+                return serverRouter.<OrderTable>forwardPostAsync(responsibleUrl, "/order/update", signature, order)
+                        .exceptionally(e -> updateConflict(e.getCause() != null ? e.getCause() : e));
+            }
+            OrderTable result = orderServiceImpl.updateOrder(order);
+            return CompletableFuture.completedFuture((result == null) ? MgrResponseDto.error(MgrResponseCode.ORDER_NOT_FOUND) : MgrResponseDto.success(result));
+        } catch (OwnerMovedException e) {
+            throw e;
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(updateConflict(e));
+        }
+    }
+
+    private static MgrResponseDto<OrderTable> updateConflict(Throwable e) {
+        return MgrResponseDto.error(MgrResponseCode.DB_CONFLICT.getCode(),MgrResponseCode.DB_CONFLICT.getMessage()+
+                " - " + e.getMessage());
+    }
+
+    @RequestMapping(value = "/order/findRange", method = RequestMethod.GET)
+    public MgrResponseDto<List<OrderTable>> findOrderBetween(String startDate, String endDate,
+                                                                @RequestHeader(value = "X-Signature", required = false) String signature) {
+        // Check signature
+        String endPointPath = "/order/findRange?startDate=" + startDate + "&endDate=" + endDate;
+        if (!signatureVerifier.verifyPath(endPointPath, signature)) {
+            log.error("Signature mismatch for order range query: startDate={}, endDate={}", startDate, endDate);
+            return MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST);
+        }
+
+        // Local shards and all other nodes at the same time
+        Map<String, Callable<List<OrderTable>>> sources = new LinkedHashMap<>(orderServiceImpl.rangeSources(startDate, endDate));
+        for (String node : new LinkedHashSet<>(fingerTable.finger.values())) {
+            if (!node.equals(CURRENT_NODE_URL)) {
+                sources.put(node, () -> serverRouter.forwardGetRaw(
+                        node, "/order/findRangeLocal?startDate="+startDate+"&endDate="+endDate,
+                        signature, new ParameterizedTypeReference<List<OrderTable>>() {}));
+            }
+        }
+        ScatterGather.Result<OrderTable> result = scatterGather.gather(sources);
+        List<OrderTable> all = result.getItems();
+
+        if (all.isEmpty()) {
+            return MgrResponseDto.error(MgrResponseCode.ORDER_NOT_FOUND);
+        }
+        return result.isPartial() ? MgrResponseDto.partial(all, result.getMissing()) : MgrResponseDto.success(all);
+    }
+
+    /**
+     * Internal endpoint for testing
+     * */
+    @GetMapping("/order/findRangeLocal")
+    public List<OrderTable> findLocalOrderBetween(@RequestParam String startDate, @RequestParam String endDate) {
+        return orderServiceImpl.findByCreateTimeBetween(startDate, endDate);
+    }
+
+    /**
+     * Keyset-paginated range query over all nodes, ordered by (createTime, orderId).
+     * Every node returns its first limit orders after the cursor, the merged page
+     * keeps the first limit of them. Pass nextCursor back to resume.
+     * A partial page has no nextCursor: orders of the missing nodes before its last order would be skipped
+     * by resuming after it, ask for the same page again instead.
+     * */
+    @RequestMapping(value = "/order/findRangePage", method = RequestMethod.GET)
+    public MgrResponseDto<OrderPage> findOrderPage(String startDate, String endDate, Integer limit, String cursor,
+                                                   @RequestHeader(value = "X-Signature", required = false) String signature) {
+        // Check signature
+        String query = "?startDate=" + startDate + "&endDate=" + endDate
+                + (limit == null ? "" : "&limit=" + limit)
+                + (cursor == null ? "" : "&cursor=" + cursor);
+        if (!signatureVerifier.verifyPath("/order/findRangePage" + query, signature)) {
+            log.error("Signature mismatch for order page query: startDate={}, endDate={}", startDate, endDate);
+            return MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST);
+        }
+        int pageSize = OrderPage.clampLimit(limit);
+        try {
+            OrderPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return MgrResponseDto.error(MgrResponseCode.PARAM_INVALID);
+        }
+
+        String localQuery = "?startDate=" + startDate + "&endDate=" + endDate + "&limit=" + pageSize
+                + (cursor == null ? "" : "&cursor=" + cursor);
+        Map<String, Callable<List<OrderTable>>> sources = new LinkedHashMap<>();
+        sources.put(CURRENT_NODE_URL, () -> orderServiceImpl.findRangePage(startDate, endDate, cursor, pageSize));
+        for (String node : new LinkedHashSet<>(fingerTable.finger.values())) {
+            if (!node.equals(CURRENT_NODE_URL)) {
+                sources.put(node, () -> serverRouter.forwardGetRaw(
+                        node, "/order/findRangePageLocal" + localQuery,
+                        signature, new ParameterizedTypeReference<List<OrderTable>>() {}));
+            }
+        }
+        ScatterGather.Result<OrderTable> result = scatterGather.gather(sources);
+
+        // Merge the per-node pages, each already sorted
+        List<OrderTable> merged = result.getItems();
+        merged.sort(Comparator.comparing(OrderTable::getCreateTime)
+                .thenComparing(order -> order.getId().getOrderId()));
+        OrderPage page = new OrderPage();
+        page.setItems(new ArrayList<>(merged.subList(0, Math.min(pageSize, merged.size()))));
+        if (!result.isPartial() && merged.size() >= pageSize) {
+            page.setNextCursor(OrderPage.encodeCursor(page.getItems().get(pageSize - 1)));
+        }
+        return result.isPartial() ? MgrResponseDto.partial(page, result.getMissing()) : MgrResponseDto.success(page);
+    }
+
+    /**
+     * Internal endpoint: one page of the local shards
+     * */
+    @GetMapping("/order/findRangePageLocal")
+    public List<OrderTable> findLocalOrderPage(@RequestParam String startDate, @RequestParam String endDate,
+                                               @RequestParam Integer limit, @RequestParam(required = false) String cursor) {
+        return orderServiceImpl.findRangePage(startDate, endDate, cursor, OrderPage.clampLimit(limit));
+    }
+
+    /**
+     * Range query streamed as NDJSON (one order per line), local shards first, then every other node.
+     * Rows are written as they are read, nothing is collected in memory.
+     * Ordered by (createTime, orderId) within a shard only.
+     * When a node fails the stream ends with {"partial":true,"missingNodes":[...]}, the rows of those nodes
+     * may be incomplete (only whole lines are written)
+     * */
+    @GetMapping("/order/findRangeStream")
+    public ResponseEntity<StreamingResponseBody> streamOrderBetween(@RequestParam String startDate, @RequestParam String endDate,
+                                                                    @RequestHeader(value = "X-Signature", required = false) String signature) {
+        // Check signature
+        String endPointPath = "/order/findRangeStream?startDate=" + startDate + "&endDate=" + endDate;
+        if (!signatureVerifier.verifyPath(endPointPath, signature)) {
+            log.error("Signature mismatch for order range stream: startDate={}, endDate={}", startDate, endDate);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST)));
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(out -> {
+            writeLocalRange(startDate, endDate, out);
+            List<String> missing = new ArrayList<>();
+            for (String node : new LinkedHashSet<>(fingerTable.finger.values())) {
+                if (!node.equals(CURRENT_NODE_URL)
+                        && !serverRouter.forwardGetStream(node,
+                        "/order/findRangeStreamLocal?startDate=" + startDate + "&endDate=" + endDate, signature, out)) {
+                    missing.add(node);
+                }
+            }
+            if (!missing.isEmpty()) {
+                Map<String, Object> trailer = new LinkedHashMap<>();
+                trailer.put("partial", true);
+                trailer.put("missingNodes", missing);
+                out.write(objectMapper.writeValueAsBytes(trailer));
+                out.write('\n');
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Internal endpoint: NDJSON stream of the local shards
+     * */
+    @GetMapping("/order/findRangeStreamLocal")
+    public ResponseEntity<StreamingResponseBody> streamLocalOrderBetween(@RequestParam String startDate, @RequestParam String endDate) {
+        return ResponseEntity.ok().contentType(NDJSON).body(out -> writeLocalRange(startDate, endDate, out));
+    }
+
+    private void writeLocalRange(String startDate, String endDate, OutputStream out) throws IOException {
+        try {
+            orderServiceImpl.streamRange(startDate, endDate, order -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(order));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * count, sum(price) and paid / unpaid split of the current orders in the range,
+     * optionally grouped by member or day (groupBy=member|day).
+     * Every shard aggregates in SQL, only the partial aggregates are merged here.
+     * */
+    @RequestMapping(value = "/order/aggregate", method = RequestMethod.GET)
+    public MgrResponseDto<List<OrderAggregate>> aggregateOrders(String startDate, String endDate, String groupBy,
+                                                                @RequestHeader(value = "X-Signature", required = false) String signature) {
+        // Check signature
+        String query = "?startDate=" + startDate + "&endDate=" + endDate + (groupBy == null ? "" : "&groupBy=" + groupBy);
+        if (!signatureVerifier.verifyPath("/order/aggregate" + query, signature)) {
+            log.error("Signature mismatch for order aggregate: startDate={}, endDate={}", startDate, endDate);
+            return MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST);
+        }
+        OrderAggregate.GroupBy grouping;
+        try {
+            grouping = OrderAggregate.GroupBy.parse(groupBy);
+        } catch (IllegalArgumentException e) {
+            return MgrResponseDto.error(MgrResponseCode.PARAM_INVALID);
+        }
+
+        // Local shards and all other nodes at the same time
+        Map<String, Callable<List<OrderAggregate>>> sources =
+                new LinkedHashMap<>(orderServiceImpl.aggregateSources(startDate, endDate, grouping));
+        for (String node : new LinkedHashSet<>(fingerTable.finger.values())) {
+            if (!node.equals(CURRENT_NODE_URL)) {
+                sources.put(node, () -> serverRouter.forwardGetRaw(
+                        node, "/order/aggregateLocal" + query,
+                        signature, new ParameterizedTypeReference<List<OrderAggregate>>() {}));
+            }
+        }
+        ScatterGather.Result<OrderAggregate> result = scatterGather.gather(sources);
+        List<OrderAggregate> merged = OrderAggregate.merge(result.getItems());
+        return result.isPartial() ? MgrResponseDto.partial(merged, result.getMissing()) : MgrResponseDto.success(merged);
+    }
+
+    /**
+     * Internal endpoint: aggregates of the local shards
+     * */
+    @GetMapping("/order/aggregateLocal")
+    public List<OrderAggregate> aggregateLocalOrders(@RequestParam String startDate, @RequestParam String endDate,
+                                                     @RequestParam(required = false) String groupBy) {
+        return orderServiceImpl.aggregate(startDate, endDate, OrderAggregate.GroupBy.parse(groupBy));
+    }
+
+    /**
+     * Internal endpoint: query plan of each order repository query on the local order shards
+     * */
+    @GetMapping("/order/queryPlan")
+    public MgrResponseDto<Map<String, Map<String, List<String>>>> explainQueryPlans(@RequestHeader(value = "X-Signature", required = false) String signature) {
+        // Check signature
+        if (!signatureVerifier.verifyPath("/order/queryPlan", signature)) {
+            log.error("Signature mismatch for order query plans");
+            return MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST);
+        }
+        return MgrResponseDto.success(orderServiceImpl.explainQueryPlans());
+    }
+
+    @RequestMapping(value = "/order/getOne", method = RequestMethod.GET)
+    public CompletableFuture<MgrResponseDto<OrderTable>> findOrderById(String orderId,String createTime,
+                                                                       @RequestHeader(value = "X-Signature", required = false) String signature) {
+        // Check signature
+        // createTime is optional, without it the shard comes from the order directory
+        String query = "?orderId=" + orderId + (createTime == null ? "" : "&createTime=" + createTime);
+        String endPointPath = "/order/getOne" + query;
+        if (!signatureVerifier.verifyPath(endPointPath, signature)) {
+            log.error("Signature mismatch for order query: orderId={}, createTime={}", orderId, createTime);
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+
+        // Determine responsible server
+        String responsibleUrl = serverRouter.getOrderResponsibleServerUrl(orderId);
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            // forward the request to the correct server
+            return serverRouter.forwardGetAsync(responsibleUrl,
+                    "/order/getOne" + query,
+                    signature);
+        }
+        OrderTable result = orderServiceImpl.findByIdAndCreateTime(orderId, createTime);
+        if (result == null) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.ORDER_NOT_FOUND));
+        }
+        return CompletableFuture.completedFuture(MgrResponseDto.success(result));
+    }
+
+    @RequestMapping(value = "/order/history", method = RequestMethod.GET)
+    public CompletableFuture<MgrResponseDto<List<OrderTable>>> findOrderHistory(String orderId, String createTime,
+                                                                                @RequestHeader(value = "X-Signature", required = false) String signature) {
+        // Check signature
+        // createTime is optional, without it the shard comes from the order directory
+        String query = "?orderId=" + orderId + (createTime == null ? "" : "&createTime=" + createTime);
+        String endPointPath = "/order/history" + query;
+        if (!signatureVerifier.verifyPath(endPointPath, signature)) {
+            log.error("Signature mismatch for order history query: orderId={}, createTime={}", orderId, createTime);
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.UNAUTHORIZED_REQUEST));
+        }
+
+        String responsibleUrl = serverRouter.getOrderResponsibleServerUrl(orderId);
+        if (!CURRENT_NODE_URL.equals(responsibleUrl)) {
+            // forward the request to the correct server
+            return serverRouter.forwardGetAsync(responsibleUrl,
+                    "/order/history" + query,
+                    signature);
+        }
+        List<OrderTable> history = orderServiceImpl.findAllVersions(orderId, createTime);
+        if (history.isEmpty()) {
+            return CompletableFuture.completedFuture(MgrResponseDto.error(MgrResponseCode.ORDER_NOT_FOUND));
+        }
+        return CompletableFuture.completedFuture(MgrResponseDto.success(history));
+    }
+
+    /**
+     * Internal test endpoint to demonstrate retry and rollback mechanism.
+     * */
+    @PostMapping("/order/updateAndFail")
+    public ResponseEntity<String> updateAndFail(@RequestBody OrderTable order) {
+        orderServiceImpl.updateWithRetryAndRollback(order);
+        return ResponseEntity.ok("Should never reach here");
+    }
+}
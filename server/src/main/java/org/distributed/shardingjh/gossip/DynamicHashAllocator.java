@@ -40,6 +40,9 @@ public class DynamicHashAllocator {
     @Resource
     private HashAllocationHTTPClient httpClient;
     
+    @Resource(name = "interNodeRestTemplate")
+    private org.springframework.web.client.RestTemplate interNodeRestTemplate;
+    
     @Value("${router.server-url}")
     private String CURRENT_NODE_URL;
     
@@ -993,15 +996,8 @@ public class DynamicHashAllocator {
             
             org.springframework.http.HttpEntity<String> request = new org.springframework.http.HttpEntity<>(headers);
             
-            // Create a simple RestTemplate for this check
-            org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
-            org.springframework.http.client.SimpleClientHttpRequestFactory factory = 
-                new org.springframework.http.client.SimpleClientHttpRequestFactory();
-            factory.setConnectTimeout(2000); // 2 seconds
-            factory.setReadTimeout(3000);    // 3 seconds
-            restTemplate.setRequestFactory(factory);
-            
-            org.springframework.http.ResponseEntity<java.util.Map> response = restTemplate.exchange(
+            // Shared pooled client, see InterNodeHttpConfig for the timeouts
+            org.springframework.http.ResponseEntity<java.util.Map> response = interNodeRestTemplate.exchange(
                 healthUrl,
                 org.springframework.http.HttpMethod.GET,
                 request,
@@ -34,6 +34,7 @@ public class GossipMsg {
         NODE_JOIN,        // Node join discovery request
         HASH_PROPOSAL,    // Hash proposal phase
         HASH_PROPOSAL_ACK,// Hash proposal acknowledgment reply phase
-        HASH_CONFIRMATION // Hash confirmation phase
+        HASH_CONFIRMATION, // Hash confirmation phase
+        CACHE_INVALIDATE  // Near cache keys written on the sender, one per line
     }
 }
@@ -23,6 +23,8 @@ public class GossipReceiver implements ApplicationRunner {
     @Resource
     GossipService gossipService;
 
+    private final Gson gson = new Gson();
+
     @Override
     public void run(ApplicationArguments args) {
         Thread t = new Thread(() -> {
@@ -34,10 +36,11 @@ public class GossipReceiver implements ApplicationRunner {
                     DatagramPacket packet = new DatagramPacket(buf, buf.length);
                     socket.receive(packet);
                     String received = new String(packet.getData(), 0, packet.getLength());
-                    log.info("Received: {}", received);
+                    // every packet, heartbeats included: not at INFO
+                    log.debug("Received: {}", received);
                     
                     try {
-                        GossipMsg gossipMsg = new Gson().fromJson(received, GossipMsg.class);
+                        GossipMsg gossipMsg = gson.fromJson(received, GossipMsg.class);
                         
                         // Add special logging for HASH_PROPOSAL_ACK messages
                         if (gossipMsg.getMsgType() == GossipMsg.Type.HASH_PROPOSAL_ACK) {
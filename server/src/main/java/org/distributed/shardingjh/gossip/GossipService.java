@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.distributed.shardingjh.cache.NearCache;
 import org.distributed.shardingjh.p2p.FingerTable;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
@@ -41,6 +42,10 @@ public class GossipService {
     @Lazy
     BootstrapService bootstrapService;
 
+    @Resource
+    @Lazy
+    NearCache nearCache;
+
     @Value("${router.server-url}")
     private String CURRENT_NODE_URL;
 
@@ -115,7 +120,7 @@ public class GossipService {
         // Use senderId + timestamp for duplicate detection instead of message content
         // This allows same content messages from different senders or different times to be processed
         String msgKey = message.getSenderId() + "_" + message.getTimestamp() + "_" + message.getMsgType();
-        log.info("[GossipService] Received gossip message key: {}", msgKey);
+        log.debug("[GossipService] Received gossip message key: {}", msgKey);
         
         // For hash allocation messages, use less strict duplicate detection
         // Allow retries for HASH_PROPOSAL and HASH_PROPOSAL_ACK messages
@@ -254,6 +259,10 @@ public class GossipService {
                     // These messages don't need further propagation, as DynamicHashAllocator handles propagation logic
                     }
                     break;
+                case CACHE_INVALIDATE:
+                    // The sender sends it to every node, no further propagation
+                    nearCache.onInvalidateGossip(message.getMsgContent());
+                    break;
             }
             
             if (gossipMsg != null) {
@@ -3,7 +3,8 @@ package org.distributed.shardingjh.init;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.distributed.shardingjh.common.constant.ShardConst;
-import org.distributed.shardingjh.service.Impl.OrderIdGenerator;
+import org.distributed.shardingjh.repository.order.OrderDirectory;
+import org.distributed.shardingjh.util.OrderIdGenerator;
 import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,6 +32,7 @@ import java.util.UUID;
  * 3. shard_order_2024: Contains order_table for 2024
  * 4. shard_order_2025: Contains order_table for 2025
  * 5. shard_order_old: Contains order_table for old orders
+ * The order_directory database is then rebuilt from the order shards (see OrderDirectory).
  *
  * @author chris
  */
@@ -41,6 +43,9 @@ public class InitSql implements CommandLineRunner {
     @Resource
     RabbitListenerEndpointRegistry rabbitListenerEndpointRegistry;
 
+    @Resource
+    OrderDirectory orderDirectory;
+
     private final DataSource shardCommon1;
     private final DataSource shardCommon2;
     private final DataSource shardOrder2024;
@@ -119,13 +124,7 @@ public class InitSql implements CommandLineRunner {
                 Connection prod_conn = productDatabase.getConnection();
                 Statement prod_stmt = prod_conn.createStatement()) {
 
-            // ✅ Enable WAL mode
-            stmt.execute("PRAGMA journal_mode=WAL");
-            stmt2.execute("PRAGMA journal_mode=WAL");
-            ord_stmt.execute("PRAGMA journal_mode=WAL");
-            ord_stmt2.execute("PRAGMA journal_mode=WAL");
-            ord_stmt3.execute("PRAGMA journal_mode=WAL");
-            prod_stmt.execute("PRAGMA journal_mode=WAL");
+            // WAL, busy_timeout and synchronous are applied per connection by each shard pool (see DataSourceConfig)
 
             // Create tables in shard_common_1
             stmt.execute("DROP TABLE IF EXISTS member");
@@ -141,16 +140,19 @@ public class InitSql implements CommandLineRunner {
             ord_stmt.execute("DROP TABLE IF EXISTS order_table");
             ord_stmt.execute(createOrderSql);
             ord_stmt.executeUpdate("DELETE FROM order_table");
+            OrderTableIndexes.ensure(ord_stmt, "shard_order_2024");
 
             // Create tables in shard_order_2025
             ord_stmt2.execute("DROP TABLE IF EXISTS order_table");
             ord_stmt2.execute(createOrderSql);
             ord_stmt2.executeUpdate("DELETE FROM order_table");
+            OrderTableIndexes.ensure(ord_stmt2, "shard_order_2025");
 
             // Create tables in shard_order_old
             ord_stmt3.execute("DROP TABLE IF EXISTS order_table");
             ord_stmt3.execute(createOrderSql);
             ord_stmt3.executeUpdate("DELETE FROM order_table");
+            OrderTableIndexes.ensure(ord_stmt3, "shard_order_old");
 
             // Create tables in product database
             prod_stmt.execute("DROP TABLE IF EXISTS product");
@@ -191,9 +193,9 @@ public class InitSql implements CommandLineRunner {
                 LocalDateTime date2023 = LocalDate.of(2023, random.nextInt(12)+1, random.nextInt(28) + 1)
                     .atTime(random.nextInt(24), random.nextInt(60), random.nextInt(60));
 
-                String orderId2025 = OrderIdGenerator.generateOrderId(date2025, memberId);
-                String orderId2024 = OrderIdGenerator.generateOrderId(date2024, memberId);
-                String orderId2023 = OrderIdGenerator.generateOrderId(date2023, memberId);
+                String orderId2025 = OrderIdGenerator.generate(date2025, memberId);
+                String orderId2024 = OrderIdGenerator.generate(date2024, memberId);
+                String orderId2023 = OrderIdGenerator.generate(date2023, memberId);
 
                 // MEMBER shard 1 INSERTION
                 if (memberInserted1 < maxDataSize && isResponsible(memberId, serverUrls, CURRENT_NODE_URL)) {
@@ -264,6 +266,8 @@ public class InitSql implements CommandLineRunner {
             prod_stmt.executeUpdate("INSERT INTO product (id, name, price) " +
                     "VALUES ('438b4970-29a0-48da-88f8-4ec28b005113','USB Flash Drive' , '30')");
         }
+        // orderId -> shard directory of the seeded orders
+        orderDirectory.rebuild();
         log.info("Database tables initialized successfully.");
         rabbitListenerEndpointRegistry.start();
     }
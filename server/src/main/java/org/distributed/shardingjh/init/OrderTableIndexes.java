@@ -0,0 +1,66 @@
+package org.distributed.shardingjh.init;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary indexes of order_table, applied to every order shard at startup.
+ * The version is part of the index name (e.g. idx_order_create_time_v1):
+ * to change an index, add it under a new version and remove the old entry,
+ * the stale index is dropped on the next startup. Running it again changes nothing.
+ *
+ * @author chris
+ */
+@Slf4j
+public class OrderTableIndexes {
+
+    private static final String INDEX_PREFIX = "idx_order_";
+
+    // index name -> definition
+    private static final Map<String, String> INDEXES = new LinkedHashMap<>();
+
+    static {
+        // findValidOrdersBetween / After / Before on all versions
+        INDEXES.put("idx_order_create_time_v1", "ON order_table (create_time)");
+        // orders of a member
+        INDEXES.put("idx_order_member_id_v1", "ON order_table (member_id)");
+        // Partial index: only current rows, the range queries only ever read these
+        INDEXES.put("idx_order_current_create_time_v1",
+                "ON order_table (create_time, order_id) WHERE expired_at IS NULL AND is_deleted = 0");
+    }
+
+    private OrderTableIndexes() {}
+
+    public static void ensure(Statement stmt, String label) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'order_table' " +
+                // prefix compared as is, LIKE would read each _ of it as any character
+                "AND substr(name, 1, " + INDEX_PREFIX.length() + ") = '" + INDEX_PREFIX + "'")) {
+            while (rs.next()) {
+                existing.add(rs.getString(1));
+            }
+        }
+        for (String name : existing) {
+            if (!INDEXES.containsKey(name)) {
+                stmt.execute("DROP INDEX IF EXISTS " + name);
+                log.info("[{}] Dropped stale index {}", label, name);
+            }
+        }
+        for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+            if (!existing.contains(index.getKey())) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS " + index.getKey() + " " + index.getValue());
+                log.info("[{}] Created index {}", label, index.getKey());
+            }
+        }
+        // Refresh planner statistics where they are out of date
+        stmt.execute("PRAGMA optimize");
+    }
+}
@@ -0,0 +1,197 @@
+package org.distributed.shardingjh.p2p;
+
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class FingerTable {
+    public final ConcurrentSkipListMap<Integer, String> finger = new Ring();
+
+    // version() of the ring as of a number of changes, recomputed once the ring changed
+    private volatile Version cachedVersion;
+
+    public void addEntry(int hash, String address) {
+        finger.put(hash, address);
+    }
+
+    /**
+     * Find the next node in the finger table for a given file
+     * Skip the current node if it is in the finger table
+     * Wrap around to the head of the table if no larger node is found
+     * @param fileName the name of the file
+     * @param currentNodeUrl the URL of the current node
+     * */
+    public String findNextNode(String fileName, String currentNodeUrl) {
+        int target = Math.abs(fileName.hashCode()) % ShardConst.FINGER_MAX_RANGE;
+        log.info("Finding next node for file: {} (hash: {})", fileName, target);
+        log.info("finger table: {}", finger);
+
+        // tailMap will return >= target (because of true)
+        NavigableMap<Integer, String> tailMap = finger.tailMap(target, true);
+        for (String node : tailMap.values()) {
+            // skip the current node
+            if (!node.equals(currentNodeUrl)) return node;
+        }
+
+        // Wrap-around: search head of the map
+        for (String node : finger.values()) {
+            if (!node.equals(currentNodeUrl)) return node;
+        }
+
+        return currentNodeUrl;
+    }
+
+    public String getNextNodeAfter(String currentNodeUrl) {
+        if (finger.isEmpty()) throw new NoSuchElementException("Finger table is empty");
+        boolean found = false;
+        for (String node : finger.values()) {
+            if (found) return node;
+            if (node.equals(currentNodeUrl)) found = true;
+        }
+        // Wrap around
+        return finger.values().iterator().next();
+    }
+
+    /**
+     * Owner of an id, see RingHash
+     * */
+    public static String ownerOf(NavigableMap<Integer, String> ring, String id) {
+        return RingHash.ownerOf(ring, id);
+    }
+
+    public static int hashOf(String id) {
+        return RingHash.hashOf(id);
+    }
+
+    /**
+     * Version of the ring: a hash of the entries, so every node holding the same entries reports the same version.
+     * Clients caching the ring compare it with X-Finger-Version / the ETag of /api/gossip/finger-table.
+     * Sent on every response, so it is only computed again after the ring changed
+     * */
+    public String version() {
+        long changes = ((Ring) finger).changes.get();
+        Version cached = cachedVersion;
+        if (cached == null || cached.changes() != changes) {
+            // a change made while hashing bumps the counter again, so a stale value is not kept
+            cached = new Version(changes, versionOf(finger));
+            cachedVersion = cached;
+        }
+        return cached.value();
+    }
+
+    public static String versionOf(Map<Integer, String> entries) {
+        return RingHash.versionOf(entries);
+    }
+
+    @Override
+    public String toString() {
+        return finger.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    private record Version(long changes, String value) {}
+
+    /**
+     * The ring counts its changes, counted after the change is visible.
+     * Views and iterators of ConcurrentSkipListMap remove through remove(key) / remove(key, value)
+     * */
+    private static final class Ring extends ConcurrentSkipListMap<Integer, String> {
+
+        private final AtomicLong changes = new AtomicLong();
+
+        private <R> R changed(R result) {
+            changes.incrementAndGet();
+            return result;
+        }
+
+        @Override
+        public String put(Integer key, String value) {
+            return changed(super.put(key, value));
+        }
+
+        @Override
+        public String putIfAbsent(Integer key, String value) {
+            return changed(super.putIfAbsent(key, value));
+        }
+
+        @Override
+        public String remove(Object key) {
+            return changed(super.remove(key));
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            return changed(super.remove(key, value));
+        }
+
+        @Override
+        public String replace(Integer key, String value) {
+            return changed(super.replace(key, value));
+        }
+
+        @Override
+        public boolean replace(Integer key, String oldValue, String newValue) {
+            return changed(super.replace(key, oldValue, newValue));
+        }
+
+        @Override
+        public String computeIfAbsent(Integer key, Function<? super Integer, ? extends String> mappingFunction) {
+            return changed(super.computeIfAbsent(key, mappingFunction));
+        }
+
+        @Override
+        public String computeIfPresent(Integer key, BiFunction<? super Integer, ? super String, ? extends String> remappingFunction) {
+            return changed(super.computeIfPresent(key, remappingFunction));
+        }
+
+        @Override
+        public String compute(Integer key, BiFunction<? super Integer, ? super String, ? extends String> remappingFunction) {
+            return changed(super.compute(key, remappingFunction));
+        }
+
+        @Override
+        public String merge(Integer key, String value, BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+            return changed(super.merge(key, value, remappingFunction));
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super Integer, ? super String, ? extends String> function) {
+            super.replaceAll(function);
+            changes.incrementAndGet();
+        }
+
+        @Override
+        public void putAll(Map<? extends Integer, ? extends String> entries) {
+            super.putAll(entries);
+            changes.incrementAndGet();
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            changes.incrementAndGet();
+        }
+
+        @Override
+        public Map.Entry<Integer, String> pollFirstEntry() {
+            return changed(super.pollFirstEntry());
+        }
+
+        @Override
+        public Map.Entry<Integer, String> pollLastEntry() {
+            return changed(super.pollLastEntry());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.distributed.shardingjh.p2p;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.config.InboundBodyFilter;
+import org.distributed.shardingjh.util.EncryptUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Trust between nodes for forwarded POSTs: the entry node checks the client's X-Signature once,
+ * then sends the body bytes as received with X-Hop-Token, so the owner does not build the canonical JSON again.
+ * <p>
+ * Token: {expiresAtMillis}.{requestId}.{issuing node}.{mac}, the last three Base64url.
+ * The mac is HMAC-SHA256 with sha256.secret.key over the request id, expiry, issuing node, method, path and body bytes,
+ * prefixed with "hop|" so it can never equal a client signature (those sign JSON or a path).
+ * A token is accepted until it expires (router.hop-token.ttl-ms, node clocks must agree within it)
+ * and only from a node of the finger table.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+public class HopToken {
+
+    public static final String HEADER = "X-Hop-Token";
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final String secretKey;
+
+    private final String currentNodeUrl;
+
+    private final FingerTable fingerTable;
+
+    private final long ttlMs;
+
+    public HopToken(@Value("${sha256.secret.key}") String secretKey,
+                    @Value("${router.server-url}") String currentNodeUrl,
+                    FingerTable fingerTable,
+                    @Value("${router.hop-token.ttl-ms:5000}") long ttlMs) {
+        this.secretKey = secretKey;
+        this.currentNodeUrl = currentNodeUrl;
+        this.fingerTable = fingerTable;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * X-Request-Id of the request being handled, a new one at the edge
+     * */
+    public String requestId() {
+        HttpServletRequest request = currentRequest();
+        String requestId = request == null ? null : request.getHeader(REQUEST_ID_HEADER);
+        return requestId == null || requestId.isEmpty() ? UUID.randomUUID().toString() : requestId;
+    }
+
+    public String issue(String requestId, String method, String pathWithQuery, byte[] body) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        byte[] mac = mac(requestId, expiresAt, currentNodeUrl, method, pathWithQuery, body);
+        return expiresAt + "." + encode(requestId) + "." + encode(currentNodeUrl) + "." + ENCODER.encodeToString(mac);
+    }
+
+    public boolean verify(String token, String method, String pathWithQuery, byte[] body) {
+        if (token == null) {
+            return false;
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            long expiresAt = Long.parseLong(parts[0]);
+            if (expiresAt < System.currentTimeMillis()) {
+                log.warn("Expired hop token for {} {}", method, pathWithQuery);
+                return false;
+            }
+            String requestId = decode(parts[1]);
+            String node = decode(parts[2]);
+            if (!fingerTable.finger.containsValue(node)) {
+                log.warn("Hop token of unknown node {}", node);
+                return false;
+            }
+            return MessageDigest.isEqual(mac(requestId, expiresAt, node, method, pathWithQuery, body), DECODER.decode(parts[3]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included
+            return false;
+        }
+    }
+
+    /**
+     * The POST being handled on this thread came from another node with a valid token over its body
+     * */
+    public boolean trustsCurrentRequest() {
+        HttpServletRequest request = currentRequest();
+        if (request == null || request.getHeader(HEADER) == null) {
+            return false;
+        }
+        byte[] body = InboundBodyFilter.currentBody();
+        if (body == null) {
+            return false;
+        }
+        return verify(request.getHeader(HEADER), request.getMethod(), pathWithQuery(request), body);
+    }
+
+    public static String pathWithQuery(HttpServletRequest request) {
+        return request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+    }
+
+    private byte[] mac(String requestId, long expiresAt, String node, String method, String pathWithQuery, byte[] body) {
+        Mac mac = EncryptUtil.threadMac(secretKey);
+        mac.reset();
+        mac.update(("hop|" + requestId + "|" + expiresAt + "|" + node + "|" + method + " " + pathWithQuery + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal(body);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest() : null;
+    }
+
+    private static String encode(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+}
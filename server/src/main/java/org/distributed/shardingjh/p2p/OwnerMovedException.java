@@ -0,0 +1,27 @@
+package org.distributed.shardingjh.p2p;
+
+import lombok.Getter;
+
+/**
+ * Raised instead of forwarding when router.mode=redirect:
+ * the client is sent to the owner of the id with a 307 (see MovedResponseAdvice)
+ *
+ * @author chris
+ * */
+@Getter
+public class OwnerMovedException extends RuntimeException {
+
+    private final String ownerUrl;
+
+    // owner URL + the original path and query
+    private final String location;
+
+    private final String fingerVersion;
+
+    public OwnerMovedException(String ownerUrl, String location, String fingerVersion) {
+        super("Owned by " + ownerUrl);
+        this.ownerUrl = ownerUrl;
+        this.location = location;
+        this.fingerVersion = fingerVersion;
+    }
+}
@@ -0,0 +1,78 @@
+package org.distributed.shardingjh.p2p;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the requests forwarded to each peer, one timer per peer:
+ * /actuator/metrics/internode.forward.latency?tag=peer:3.15.149.110:8082
+ * The timers keep a decaying window (about 2 minutes) of client-side percentiles,
+ * the hedge delay of a peer is its router.hedge.percentile latency.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+public class PeerLatencyTracker {
+
+    private final MeterRegistry meterRegistry;
+
+    private final double percentile;
+
+    private final long minDelayMs;
+
+    private final long maxDelayMs;
+
+    private final long minSamples;
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public PeerLatencyTracker(MeterRegistry meterRegistry,
+                              @Value("${router.hedge.percentile:0.95}") double percentile,
+                              @Value("${router.hedge.min-delay-ms:5}") long minDelayMs,
+                              @Value("${router.hedge.max-delay-ms:100}") long maxDelayMs,
+                              @Value("${router.hedge.min-samples:50}") long minSamples) {
+        this.meterRegistry = meterRegistry;
+        this.percentile = percentile;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.minSamples = minSamples;
+    }
+
+    public void record(String peer, long nanos) {
+        timer(peer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * How long to wait for the peer before sending a hedge: its percentile latency,
+     * kept within [min-delay-ms, max-delay-ms]. max-delay-ms until the peer has min-samples answers
+     * */
+    public long hedgeDelayMs(String peer) {
+        Timer timer = timer(peer);
+        if (timer.count() < minSamples) {
+            return maxDelayMs;
+        }
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return Math.max(minDelayMs, Math.min(maxDelayMs, (long) value.value(TimeUnit.MILLISECONDS)));
+            }
+        }
+        return maxDelayMs;
+    }
+
+    private Timer timer(String peer) {
+        return timers.computeIfAbsent(peer, p -> Timer.builder("internode.forward.latency")
+                .description("Latency of the requests forwarded to a peer")
+                .tag("peer", p)
+                .publishPercentiles(percentile)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,189 @@
+package org.distributed.shardingjh.p2p;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scatter-gather over remote nodes and local shards.
+ * All sources are queried at the same time, so the latency is the one of the slowest source
+ * instead of the sum. A source that fails, returns null or does not answer within
+ * the per-node timeout is left out and the result is marked partial.
+ * <p>
+ * A source may call gather itself (e.g. the local node fanning out to its shards): the nested sources run on
+ * a pool of their own, so they never wait behind the outer ones, and within what is left of the outer deadline.
+ * Only one level of nesting is supported. Sources should also bound their own I/O by {@link #remainingMillis()},
+ * a source that timed out is only interrupted, which neither a socket read nor a SQLite statement notices.
+ * With the virtual profile on Java 21+ every source runs on its own virtual thread instead,
+ * and scatter-gather.threads / shard-threads no longer cap the fan-out.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+public class ScatterGather {
+
+    // query timeout of the JPA fan-out queries (a hint must be a constant), the default node-timeout-ms
+    public static final String STATEMENT_TIMEOUT_MS = "3000";
+
+    // a nested gather ends this much before its source, so the source can still return what it gathered
+    private static final long NESTED_MARGIN_MS = 50;
+
+    private final long nodeTimeoutMs;
+
+    private final ExecutorService executor;
+
+    // sources of a gather called from a source
+    private final ExecutorService nestedExecutor;
+
+    // deadline (System.nanoTime) of the source running on this thread
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    @Autowired
+    public ScatterGather(@Value("${scatter-gather.threads:16}") int threads,
+                         @Value("${scatter-gather.shard-threads:8}") int shardThreads,
+                         @Value("${scatter-gather.node-timeout-ms:3000}") long nodeTimeoutMs,
+                         Environment environment) {
+        this(nodeTimeoutMs,
+                Threading.VIRTUAL.isActive(environment) ? virtualThreadPool("scatter-gather-") : platformThreadPool("scatter-gather-", threads),
+                Threading.VIRTUAL.isActive(environment) ? virtualThreadPool("scatter-gather-shard-") : platformThreadPool("scatter-gather-shard-", shardThreads));
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                && !Threading.VIRTUAL.isActive(environment)) {
+            log.warn("[ScatterGather] spring.threads.virtual.enabled needs Java 21+, running on platform threads (Java {})",
+                    Runtime.version().feature());
+        }
+    }
+
+    public ScatterGather(int threads, long nodeTimeoutMs) {
+        this(nodeTimeoutMs, platformThreadPool("scatter-gather-", threads), platformThreadPool("scatter-gather-shard-", threads));
+    }
+
+    private ScatterGather(long nodeTimeoutMs, ExecutorService executor, ExecutorService nestedExecutor) {
+        this.nodeTimeoutMs = nodeTimeoutMs;
+        this.executor = executor;
+        this.nestedExecutor = nestedExecutor;
+    }
+
+    private static ExecutorService platformThreadPool(String prefix, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    private static ExecutorService virtualThreadPool(String prefix) {
+        log.info("[ScatterGather] Running {}* sources on virtual threads", prefix);
+        return Executors.newCachedThreadPool(new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory());
+    }
+
+    /**
+     * Time left to the source running on the calling thread, Long.MAX_VALUE outside a gather
+     * */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * remainingMillis() as a JDBC query timeout: whole seconds rounded up, 0 (none) outside a gather
+     * */
+    public static int remainingStatementSeconds() {
+        long remaining = remainingMillis();
+        return remaining == Long.MAX_VALUE ? 0 : (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+    }
+
+    @Getter
+    public static class Result<T> {
+        private final List<T> items = new ArrayList<>();
+        // sources left out of the result
+        private final List<String> missing = new ArrayList<>();
+
+        public boolean isPartial() {
+            return !missing.isEmpty();
+        }
+    }
+
+    /**
+     * @param sources source name (node URL or shard key) -> query
+     * */
+    public <T> Result<T> gather(Map<String, Callable<List<T>>> sources) {
+        Long outerDeadline = DEADLINE.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nodeTimeoutMs);
+        if (outerDeadline != null) {
+            long nestedDeadline = outerDeadline - TimeUnit.MILLISECONDS.toNanos(NESTED_MARGIN_MS);
+            if (nestedDeadline - deadline < 0) {
+                deadline = nestedDeadline;
+            }
+        }
+        long sourceDeadline = deadline;
+        ExecutorService pool = outerDeadline == null ? executor : nestedExecutor;
+        Map<String, Future<List<T>>> futures = new LinkedHashMap<>();
+        sources.forEach((name, query) -> futures.put(name, pool.submit(() -> {
+            DEADLINE.set(sourceDeadline);
+            try {
+                return query.call();
+            } finally {
+                DEADLINE.remove();
+            }
+        })));
+
+        Result<T> result = new Result<>();
+        for (Map.Entry<String, Future<List<T>>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            Future<List<T>> future = entry.getValue();
+            try {
+                List<T> items = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (items == null) {
+                    log.warn("[ScatterGather] No response from {}", name);
+                    result.missing.add(name);
+                    continue;
+                }
+                result.items.addAll(items);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("[ScatterGather] {} did not answer in time", name);
+                result.missing.add(name);
+            } catch (ExecutionException e) {
+                log.warn("[ScatterGather] {} failed: {}", name, e.getCause().getMessage());
+                result.missing.add(name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                result.missing.add(name);
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        nestedExecutor.shutdownNow();
+    }
+}
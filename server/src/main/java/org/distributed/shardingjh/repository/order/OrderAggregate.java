@@ -0,0 +1,74 @@
+package org.distributed.shardingjh.repository.order;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Partial aggregate of current orders for one group, computed in SQL by every shard.
+ * Partials of the same key are added up by the coordinator.
+ * */
+@Getter
+@Setter
+public class OrderAggregate {
+
+    public static final String TOTAL_KEY = "total";
+
+    public enum GroupBy {
+        // one row for the whole range
+        NONE,
+        // one row per member_id
+        MEMBER,
+        // one row per day of create_time in the JVM zone (the zone it is stored in), e.g. 2025-05-18
+        DAY;
+
+        public static GroupBy parse(String groupBy) {
+            return groupBy == null || groupBy.isEmpty() ? NONE : valueOf(groupBy.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // member id, day or TOTAL_KEY
+    private String key;
+
+    private long count;
+
+    private long totalPrice;
+
+    private long paidCount;
+
+    private long paidPrice;
+
+    private long unpaidCount;
+
+    private long unpaidPrice;
+
+    private void add(OrderAggregate other) {
+        count += other.count;
+        totalPrice += other.totalPrice;
+        paidCount += other.paidCount;
+        paidPrice += other.paidPrice;
+        unpaidCount += other.unpaidCount;
+        unpaidPrice += other.unpaidPrice;
+    }
+
+    /**
+     * Add up the partials of every shard / node, one row per key ordered by key
+     * */
+    public static List<OrderAggregate> merge(Collection<OrderAggregate> partials) {
+        Map<String, OrderAggregate> merged = new TreeMap<>();
+        for (OrderAggregate partial : partials) {
+            merged.computeIfAbsent(partial.getKey(), key -> {
+                OrderAggregate aggregate = new OrderAggregate();
+                aggregate.setKey(key);
+                return aggregate;
+            }).add(partial);
+        }
+        return new ArrayList<>(merged.values());
+    }
+}
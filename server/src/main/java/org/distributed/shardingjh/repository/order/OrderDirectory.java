@@ -0,0 +1,128 @@
+package org.distributed.shardingjh.repository.order;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.distributed.shardingjh.config.ShardingProperties;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.model.OrderTable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directory of the orders owned by this node: orderId -> order shard and createTime.
+ * Lets point reads find the year shard from the order id alone (one primary key lookup)
+ * instead of requiring the caller to know createTime.
+ * Kept in its own small SQLite database (order_directory.db).
+ * */
+@Slf4j
+@Repository
+public class OrderDirectory {
+
+    @Resource(name = "orderDirectoryJdbcTemplate")
+    private JdbcTemplate directoryJdbc;
+
+    @Resource(name = "orderRoutingJdbcTemplate")
+    private JdbcTemplate orderJdbcTemplate;
+
+    @Resource
+    private ShardingProperties shardingProperties;
+
+    public record Entry(String shardKey, LocalDateTime createTime) {}
+
+    /**
+     * Record (or move) an order
+     * */
+    public void put(String orderId, String shardKey, LocalDateTime createTime) {
+        directoryJdbc.update("""
+            INSERT INTO order_directory (order_id, shard_key, create_time) VALUES (?, ?, ?)
+            ON CONFLICT (order_id) DO UPDATE SET shard_key = excluded.shard_key, create_time = excluded.create_time
+        """, orderId, shardKey, createTime.toString());
+    }
+
+    /**
+     * Record (or move) the orders of a shard in one transaction
+     * */
+    public void putAll(String shardKey, List<OrderTable> orders) {
+        List<Object[]> rows = new ArrayList<>(orders.size());
+        for (OrderTable order : orders) {
+            rows.add(new Object[]{order.getId().getOrderId(), shardKey, order.getCreateTime().toString()});
+        }
+        insertAll(rows);
+    }
+
+    /**
+     * @return null if the order is not known to this node
+     * */
+    public Entry find(String orderId) {
+        List<Entry> entries = directoryJdbc.query(
+                "SELECT shard_key, create_time FROM order_directory WHERE order_id = ?",
+                (rs, rowNum) -> new Entry(rs.getString("shard_key"), LocalDateTime.parse(rs.getString("create_time"))),
+                orderId);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Recreate the directory from the order shards of this node
+     * */
+    public void rebuild() {
+        directoryJdbc.execute("""
+            CREATE TABLE IF NOT EXISTS order_directory (
+                order_id varchar(255) PRIMARY KEY,
+                shard_key varchar(64) NOT NULL,
+                create_time varchar(32) NOT NULL
+            ) WITHOUT ROWID
+        """);
+        directoryJdbc.update("DELETE FROM order_directory");
+        for (Map.Entry<String, String> lookup : shardingProperties.getLookup().entrySet()) {
+            if (!lookup.getKey().startsWith(ShardConst.SHARD_ORDER_PREFIX)) {
+                continue;
+            }
+            String shardKey = lookup.getValue();
+            List<Object[]> rows;
+            try {
+                ShardContext.setCurrentShardForRead(shardKey);
+                rows = orderJdbcTemplate.query(
+                        "SELECT order_id, MIN(create_time) AS create_time FROM order_table GROUP BY order_id",
+                        (rs, rowNum) -> new Object[]{rs.getString("order_id"), shardKey,
+                                rs.getTimestamp("create_time").toLocalDateTime().toString()});
+            } finally {
+                ShardContext.clear();
+            }
+            insertAll(rows);
+            log.info("[OrderDirectory] {} orders indexed from {}", rows.size(), shardKey);
+        }
+    }
+
+    // One transaction for the whole shard instead of one commit per row
+    private void insertAll(List<Object[]> rows) {
+        directoryJdbc.execute((ConnectionCallback<Void>) conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT OR REPLACE INTO order_directory (order_id, shard_key, create_time) VALUES (?, ?, ?)")) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+}
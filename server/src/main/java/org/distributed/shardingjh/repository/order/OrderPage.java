@@ -0,0 +1,59 @@
+package org.distributed.shardingjh.repository.order;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.distributed.shardingjh.model.OrderTable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated order range query.
+ * nextCursor is the (createTime, orderId) of the last order of the page,
+ * pass it back to get the next page, it is null on the last page and on a partial page (not resumable).
+ * */
+@Getter
+@Setter
+public class OrderPage {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private List<OrderTable> items;
+
+    private String nextCursor;
+
+    /**
+     * Position after which a page starts
+     * */
+    public record Cursor(LocalDateTime createTime, String orderId) {}
+
+    public static String encodeCursor(OrderTable last) {
+        String raw = last.getCreateTime() + "|" + last.getId().getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null for the first page
+     * */
+    public static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = raw.indexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -1,9 +1,13 @@
 package org.distributed.shardingjh.repository.order;
 
 import io.lettuce.core.dynamic.annotation.Param;
+import jakarta.persistence.QueryHint;
 import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -16,6 +20,8 @@ public interface OrderRepository extends JpaRepository<OrderTable, String>  {
     @Query("SELECT o FROM OrderTable o WHERE o.id.orderId = :orderId AND o.expiredAt IS NULL AND o.isDeleted = 0")
     Optional<OrderTable> findCurrentByOrderId(@Param("orderId") String orderId);
 
+    // run by scatter-gather, bounded by a statement timeout as the gather stops waiting for it
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = ScatterGather.STATEMENT_TIMEOUT_MS))
     @Query("SELECT o FROM OrderTable o WHERE o.createTime BETWEEN :start AND :end AND o.expiredAt IS NULL AND o.isDeleted = 0")
     List<OrderTable> findValidOrdersBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
@@ -29,6 +35,20 @@ public interface OrderRepository extends JpaRepository<OrderTable, String>  {
             "AND o.expiredAt IS NULL AND o.isDeleted = 0")
     List<OrderTable> findValidOrdersBefore(@Param("createTimeBefore") LocalDateTime createTimeBefore);
 
+    // Keyset pagination on (create_time, order_id), served by idx_order_current_create_time
+    @Query("SELECT o FROM OrderTable o WHERE o.createTime BETWEEN :start AND :end " +
+            "AND o.expiredAt IS NULL AND o.isDeleted = 0 " +
+            "ORDER BY o.createTime ASC, o.id.orderId ASC")
+    List<OrderTable> findValidOrdersPage(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, Limit limit);
+
+    @Query("SELECT o FROM OrderTable o WHERE o.createTime BETWEEN :start AND :end " +
+            "AND o.expiredAt IS NULL AND o.isDeleted = 0 " +
+            "AND o.createTime >= :afterTime AND (o.createTime > :afterTime OR o.id.orderId > :afterOrderId) " +
+            "ORDER BY o.createTime ASC, o.id.orderId ASC")
+    List<OrderTable> findValidOrdersPageAfter(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                              @Param("afterTime") LocalDateTime afterTime,
+                                              @Param("afterOrderId") String afterOrderId, Limit limit);
+
     @Query("SELECT o FROM OrderTable o WHERE o.id.orderId = :orderId ORDER BY o.id.version ASC")
     List<OrderTable> findAllVersionsByOrderId(@Param("orderId") String orderId);
 }
@@ -0,0 +1,22 @@
+package org.distributed.shardingjh.repository.user;
+
+import jakarta.persistence.QueryHint;
+import org.distributed.shardingjh.model.Member;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MemberRepository extends JpaRepository<Member, String> {
+
+    Optional<Member> findByName(String userName);
+
+    // run by scatter-gather, bounded by a statement timeout as the gather stops waiting for it
+    @Override
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = ScatterGather.STATEMENT_TIMEOUT_MS))
+    List<Member> findAll();
+}
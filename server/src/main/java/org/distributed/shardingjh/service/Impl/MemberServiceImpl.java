@@ -0,0 +1,211 @@
+package org.distributed.shardingjh.service.Impl;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.cache.NearCache;
+import org.distributed.shardingjh.cache.RedisEntityCache;
+import org.distributed.shardingjh.common.constant.RedisConst;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.distributed.shardingjh.config.ShardingProperties;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.model.Member;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.distributed.shardingjh.repository.user.MemberRepository;
+import org.distributed.shardingjh.service.MemberService;
+import org.distributed.shardingjh.sharding.Impl.HashStrategy;
+import org.distributed.shardingjh.util.SingleFlight;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+@Slf4j
+@Service
+public class MemberServiceImpl implements MemberService {
+
+    @Resource
+    private MemberRepository memberRepository;
+
+    @Resource
+    private HashStrategy hashStrategy;
+
+    @Resource
+    private ShardingProperties shardingProperties;
+
+    @Resource
+    private ScatterGather scatterGather;
+
+    @Resource
+    private RedisEntityCache entityCache;
+
+    @Resource
+    private NearCache nearCache;
+
+    // concurrent reads of the same member share one lookup
+    private final SingleFlight<String, Member> memberLookups = new SingleFlight<>("member");
+
+    /**
+     * Search for a user by id
+     * 1. Check the near cache, then Redis
+     * 2. If not found, search in the database (and cache the result, a miss too)
+     * Concurrent calls for the same id share one lookup
+     * */
+    @Override
+    public Member findById(String id) {
+        String cacheKey = RedisConst.REDIS_KEY_MEMBER_PREFIX + id;
+        return nearCache.getOrLoad(cacheKey, Member.class, () -> memberLookups.call(id, () -> entityCache.getOrLoad(cacheKey, Member.class, () -> {
+            try {
+                log.debug("Find Member by id: {}", id);
+
+                // search in the database
+                String shardKey = hashStrategy.resolveShard(id);
+                ShardContext.setCurrentShardForRead(shardKey);
+                Optional<Member> user = memberRepository.findById(id);
+                return user.orElse(null);
+            } finally {
+                // Clear the shard context after use
+                ShardContext.clear();
+            }
+        })));
+    }
+
+    /**
+     * Route to the appropriate shard based on
+     * 1. id => shard_common
+     * */
+    @Override
+    public Member saveMember(Member member) {
+        try {
+            String shardKey = hashStrategy.resolveShard(member.getId());
+            ShardContext.setCurrentShard(shardKey);
+            memberRepository.save(member);
+        } finally {
+            // Clear the shard context after use
+            ShardContext.clear();
+        }
+        cacheMember(member);
+        return member;
+    }
+
+    /**
+     * Group the members by shard and save each group with saveAll,
+     * so a shard pays for one transaction instead of one per member
+     * */
+    @Override
+    public List<Member> saveMembers(List<Member> members) {
+        Map<String, List<Member>> byShard = new LinkedHashMap<>();
+        for (Member member : members) {
+            byShard.computeIfAbsent(hashStrategy.resolveShard(member.getId()), k -> new ArrayList<>()).add(member);
+        }
+        List<Member> saved = new ArrayList<>(members.size());
+        for (Map.Entry<String, List<Member>> group : byShard.entrySet()) {
+            try {
+                log.debug("Routing {} members to shard {}", group.getValue().size(), group.getKey());
+                ShardContext.setCurrentShard(group.getKey());
+                saved.addAll(memberRepository.saveAll(group.getValue()));
+            } finally {
+                ShardContext.clear();
+            }
+        }
+        saved.forEach(this::cacheMember);
+        return saved;
+    }
+
+    /**
+     * Group the ids by shard, one IN query per shard
+     * */
+    @Override
+    public List<Member> findByIds(Collection<String> ids) {
+        Map<String, List<String>> byShard = new LinkedHashMap<>();
+        for (String id : ids) {
+            byShard.computeIfAbsent(hashStrategy.resolveShard(id), k -> new ArrayList<>()).add(id);
+        }
+        List<Member> found = new ArrayList<>(ids.size());
+        for (Map.Entry<String, List<String>> group : byShard.entrySet()) {
+            try {
+                ShardContext.setCurrentShardForRead(group.getKey());
+                found.addAll(memberRepository.findAllById(group.getValue()));
+            } finally {
+                ShardContext.clear();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find all members
+     * */
+    @Override
+    public List<Member> findAllMembers() {
+        log.debug("Find all members");
+        ScatterGather.Result<Member> result = scatterGather.gather(allMembersSources());
+        if (result.isPartial()) {
+            throw new IllegalStateException("Member shards did not answer: " + result.getMissing());
+        }
+        return result.getItems();
+    }
+
+    /**
+     * One query per member shard, to be run concurrently
+     * */
+    public Map<String, Callable<List<Member>>> allMembersSources() {
+        Map<String, Callable<List<Member>>> sources = new LinkedHashMap<>();
+        // Check all the shards
+        for (int i = 1; i <= ShardConst.TOTAL_SHARD_COMMON_COUNT; i++) {
+            String shardKey = shardingProperties.getLookup().get(ShardConst.SHARD_COMMON_PREFIX + i);
+            sources.put(shardKey, () -> {
+                try {
+                    log.debug("Routing to shard {}", shardKey);
+                    ShardContext.setCurrentShardForRead(shardKey);
+                    return memberRepository.findAll();
+                } finally {
+                    ShardContext.clear();
+                }
+            });
+        }
+        return sources;
+    }
+
+    @Override
+    public Member updateMember(Member member) {
+        try {
+            log.debug("Update Member id: {}", member.getId());
+            String shardKey = hashStrategy.resolveShard(member.getId());
+            ShardContext.setCurrentShard(shardKey);
+            memberRepository.save(member);
+        } finally {
+            // Clear the shard context after use
+            ShardContext.clear();
+        }
+        cacheMember(member);
+        return member;
+    }
+
+
+    @Override
+    public void deleteMember(String id) {
+        try {
+            // find shard of the user
+            String shardKey = hashStrategy.resolveShard(id);
+            ShardContext.setCurrentShard(shardKey);
+            // delete from database
+            memberRepository.deleteById(id);
+        } finally {
+            // Clear the shard context after use
+            ShardContext.clear();
+        }
+        entityCache.evict(RedisConst.REDIS_KEY_MEMBER_PREFIX + id);
+        nearCache.invalidate(RedisConst.REDIS_KEY_MEMBER_PREFIX + id);
+    }
+
+    private void cacheMember(Member member) {
+        String cacheKey = RedisConst.REDIS_KEY_MEMBER_PREFIX + member.getId();
+        entityCache.put(cacheKey, member);
+        nearCache.put(cacheKey, member);
+    }
+}
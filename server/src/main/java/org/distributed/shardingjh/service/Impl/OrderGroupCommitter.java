@@ -0,0 +1,303 @@
+package org.distributed.shardingjh.service.Impl;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.config.ShardMetrics;
+import org.distributed.shardingjh.context.ShardContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Group commit for order writes.
+ * Every order shard has one writer thread that collects the writes submitted within
+ * a short linger window (or until the batch is full) and applies them in a single
+ * transaction, so the whole batch pays for one SQLite commit instead of one per statement.
+ * The future of each write is completed only after the batch has been committed.
+ * <p>
+ * A write may reject itself by throwing {@link OrderVersionConflictException} before it changes anything,
+ * only that write fails. Any other failure rolls back the batch
+ * and every write of it is retried in its own transaction.
+ * An Error fails the whole batch and ends the writer: the writes queued behind it
+ * and the next ones of the shard go to a new writer. Callers never wait more than AWAIT_TIMEOUT_SECONDS.
+ *
+ * @author chris
+ * */
+@Slf4j
+@Component
+public class OrderGroupCommitter {
+
+    @PersistenceUnit(unitName = "shardingOrder")
+    private EntityManagerFactory emf;
+
+    @Resource
+    private ShardMetrics shardMetrics;
+
+    @Value("${order.group-commit.max-batch-size:64}")
+    private int maxBatchSize;
+
+    @Value("${order.group-commit.max-linger-micros:500}")
+    private long maxLingerMicros;
+
+    private final ConcurrentHashMap<String, BlockingQueue<PendingWrite<?>>> queues = new ConcurrentHashMap<>();
+
+    private final List<Thread> writers = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    // Longest wait of await(), a batch normally commits in a few ms
+    public static final long AWAIT_TIMEOUT_SECONDS = 30;
+
+    // update = counted in order.update.attempts
+    private record PendingWrite<T>(Function<EntityManager, T> work, CompletableFuture<T> future, boolean update) {}
+
+    /**
+     * Queue a write for the given order shard.
+     * The work runs on the shard's writer thread inside the batch transaction.
+     * */
+    public <T> CompletableFuture<T> submit(String shardKey, Function<EntityManager, T> work) {
+        return enqueue(shardKey, work, false);
+    }
+
+    /**
+     * Queue an MVCC update, like submit(), also recording each of its attempts in order.update.attempts:
+     * attempt 1 is the batch transaction, attempt 2 its own transaction after the batch failed
+     * */
+    public <T> CompletableFuture<T> submitUpdate(String shardKey, Function<EntityManager, T> work) {
+        return enqueue(shardKey, work, true);
+    }
+
+    private <T> CompletableFuture<T> enqueue(String shardKey, Function<EntityManager, T> work, boolean update) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Order group commit is shut down"));
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        PendingWrite<T> write = new PendingWrite<>(work, future, update);
+        BlockingQueue<PendingWrite<?>> queue = queues.computeIfAbsent(shardKey, this::startWriter);
+        queue.add(write);
+        // the writer stopped between the lookup and the add, after failing its queue: hand the write to a new one
+        if (queues.get(shardKey) != queue && queue.remove(write)) {
+            queues.computeIfAbsent(shardKey, this::startWriter).add(write);
+        }
+        return future;
+    }
+
+    /**
+     * Wait for a submitted write, rethrowing its failure unwrapped
+     * */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Order write not committed within " + AWAIT_TIMEOUT_SECONDS + " s");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private BlockingQueue<PendingWrite<?>> startWriter(String shardKey) {
+        BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+        Thread writer = new Thread(() -> writeLoop(shardKey, queue), "group-commit-" + shardKey);
+        writer.setDaemon(true);
+        synchronized (writers) {
+            writers.add(writer);
+        }
+        writer.start();
+        log.info("[GroupCommit] Writer started for {} (max batch: {}, max linger: {} µs)", shardKey, maxBatchSize, maxLingerMicros);
+        return queue;
+    }
+
+    private void writeLoop(String shardKey, BlockingQueue<PendingWrite<?>> queue) {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxLingerMicros);
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commitBatch(shardKey, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                if (t instanceof Error error) {
+                    log.error("[GroupCommit] Writer of {} stopped", shardKey, error);
+                    // unregister before failing anything, so no write submitted from now on lands in this queue
+                    queues.remove(shardKey, queue);
+                    batch.forEach(w -> recordAttempt(shardKey, w, 1, "failed"));
+                    batch.forEach(w -> w.future().completeExceptionally(error));
+                    handOver(shardKey, queue);
+                    throw error;
+                }
+                // the writes already completed keep their result
+                batch.forEach(w -> w.future().completeExceptionally(t));
+                log.error("[GroupCommit] {} batch of {} failed", shardKey, batch.size(), t);
+            } finally {
+                batch.clear();
+            }
+        }
+        // Fail whatever is still queued on shutdown
+        failQueued(queue, new IllegalStateException("Order group commit is shut down"));
+    }
+
+    /**
+     * Move the writes queued behind a stopped writer, which never ran, to a new writer of the shard.
+     * A write added concurrently is moved either here or by submit(), whichever removes it from the queue first
+     * */
+    private void handOver(String shardKey, BlockingQueue<PendingWrite<?>> queue) {
+        List<PendingWrite<?>> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (left.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            left.forEach(w -> w.future().completeExceptionally(new IllegalStateException("Order group commit is shut down")));
+            return;
+        }
+        queues.computeIfAbsent(shardKey, this::startWriter).addAll(left);
+    }
+
+    private static void failQueued(BlockingQueue<PendingWrite<?>> queue, Throwable failure) {
+        List<PendingWrite<?>> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(w -> w.future().completeExceptionally(failure));
+    }
+
+    private void commitBatch(String shardKey, List<PendingWrite<?>> batch) {
+        List<Object> results = new ArrayList<>(batch.size());
+        List<RuntimeException> rejections = new ArrayList<>(batch.size());
+        EntityManager em = null;
+        try {
+            ShardContext.setCurrentShard(shardKey);
+            em = emf.createEntityManager();
+            em.getTransaction().begin();
+            for (PendingWrite<?> write : batch) {
+                try {
+                    results.add(write.work().apply(em));
+                    rejections.add(null);
+                } catch (OrderVersionConflictException e) {
+                    shardMetrics.mvccConflict(shardKey);
+                    results.add(null);
+                    rejections.add(e);
+                }
+            }
+            em.getTransaction().commit();
+            log.debug("[GroupCommit] {} committed {} write(s) in one transaction", shardKey, batch.size());
+        } catch (RuntimeException e) {
+            String outcome = shardMetrics.sqliteBusy(shardKey, e) ? "locked" : "failed";
+            batch.forEach(w -> recordAttempt(shardKey, w, 1, outcome));
+            log.warn("[GroupCommit] {} batch of {} failed ({}), retrying writes one by one", shardKey, batch.size(), e.getMessage());
+            rollback(em);
+            close(em);
+            em = null;
+            commitOneByOne(shardKey, batch);
+            return;
+        } finally {
+            // still open only when an Error escaped the batch
+            rollback(em);
+            close(em);
+            ShardContext.clear();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            recordAttempt(shardKey, batch.get(i), 1, rejections.get(i) == null ? "committed" : "conflict");
+            complete(batch.get(i), results.get(i), rejections.get(i));
+        }
+    }
+
+    private void commitOneByOne(String shardKey, List<PendingWrite<?>> batch) {
+        for (PendingWrite<?> write : batch) {
+            EntityManager em = null;
+            try {
+                ShardContext.setCurrentShard(shardKey);
+                em = emf.createEntityManager();
+                em.getTransaction().begin();
+                Object result = write.work().apply(em);
+                em.getTransaction().commit();
+                recordAttempt(shardKey, write, 2, "committed");
+                complete(write, result, null);
+            } catch (RuntimeException e) {
+                if (e instanceof OrderVersionConflictException) {
+                    shardMetrics.mvccConflict(shardKey);
+                    recordAttempt(shardKey, write, 2, "conflict");
+                } else {
+                    recordAttempt(shardKey, write, 2, shardMetrics.sqliteBusy(shardKey, e) ? "locked" : "failed");
+                }
+                rollback(em);
+                complete(write, null, e);
+            } finally {
+                rollback(em);
+                close(em);
+                ShardContext.clear();
+            }
+        }
+    }
+
+    private void recordAttempt(String shardKey, PendingWrite<?> write, int attempt, String outcome) {
+        if (write.update()) {
+            shardMetrics.updateAttempt(shardKey, attempt, outcome);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void complete(PendingWrite<T> write, Object result, RuntimeException failure) {
+        if (failure != null) {
+            write.future().completeExceptionally(failure);
+        } else {
+            write.future().complete((T) result);
+        }
+    }
+
+    private static void rollback(EntityManager em) {
+        if (em != null && em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+    }
+
+    private static void close(EntityManager em) {
+        if (em != null && em.isOpen()) {
+            em.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        synchronized (writers) {
+            writers.forEach(Thread::interrupt);
+        }
+    }
+}
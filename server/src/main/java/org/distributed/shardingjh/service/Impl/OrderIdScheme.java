@@ -0,0 +1,18 @@
+package org.distributed.shardingjh.service.Impl;
+
+import org.distributed.shardingjh.util.OrderIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies order.id.scheme to OrderIdGenerator, which lives in the common module without Spring
+ * @author chris
+ */
+@Component
+public class OrderIdScheme {
+
+    @Value("${order.id.scheme:md5}")
+    public void setScheme(String configured) {
+        OrderIdGenerator.setScheme(configured);
+    }
+}
@@ -0,0 +1,691 @@
+package org.distributed.shardingjh.service.Impl;
+
+import jakarta.annotation.Resource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.cache.NearCache;
+import org.distributed.shardingjh.cache.RedisEntityCache;
+import org.distributed.shardingjh.common.constant.RedisConst;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.distributed.shardingjh.config.ShardMetrics;
+import org.distributed.shardingjh.config.ShardingProperties;
+import org.distributed.shardingjh.config.SqlCapture;
+import org.distributed.shardingjh.context.RequestTrace;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.model.OrderKey;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.distributed.shardingjh.repository.order.OrderAggregate;
+import org.distributed.shardingjh.repository.order.OrderDirectory;
+import org.distributed.shardingjh.repository.order.OrderPage;
+import org.distributed.shardingjh.repository.order.OrderRepository;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.service.OrderService;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.distributed.shardingjh.util.SingleFlight;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.sqlite.SQLiteException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class OrderServiceImpl implements OrderService {
+
+    @Resource
+    private RangeStrategy rangeStrategy;
+
+    @Resource
+    private OrderRepository orderRepository;
+
+    // For testing MVCC concurrency conflict
+    private static final AtomicBoolean firstFailureSimulated = new AtomicBoolean(false);
+
+    // EntityManager is used to interact with the persistence context (i.e., to perform database operations like queries, inserts, updates, and deletes).
+    // Each EntityManager instance represents a single unit of work and should be closed after use to release resources.
+    @PersistenceContext(unitName = "shardingOrder")
+    private EntityManager em;
+
+    @Resource
+    private PlatformTransactionManager txManager;
+
+    @Resource
+    private OrderGroupCommitter groupCommitter;
+
+    @Resource
+    private ScatterGather scatterGather;
+
+    @Resource
+    private OrderDirectory orderDirectory;
+
+    @Resource(name = "orderRoutingJdbcTemplate")
+    private JdbcTemplate orderJdbcTemplate;
+
+    @Resource
+    private ShardingProperties shardingProperties;
+
+    @Resource
+    private RedisEntityCache entityCache;
+
+    @Resource
+    private NearCache nearCache;
+
+    @Resource
+    private ShardMetrics shardMetrics;
+
+    // DAY aggregates are grouped by quarter hour in SQL, see aggregateSources
+    private static final long QUARTER_HOUR_MILLIS = 15 * 60 * 1000L;
+
+    private final SingleFlight<String, OrderTable> orderLookups = new SingleFlight<>("order");
+
+    // One call of each OrderRepository query, run once per shard to capture the SQL Hibernate sends (SqlCapture).
+    // The arguments match no row
+    public static final Map<String, Consumer<OrderRepository>> REPOSITORY_QUERIES = new LinkedHashMap<>();
+
+    static {
+        LocalDateTime never = LocalDateTime.of(1970, 1, 1, 0, 0);
+        REPOSITORY_QUERIES.put("findCurrentByOrderId", repository -> repository.findCurrentByOrderId(""));
+        REPOSITORY_QUERIES.put("findValidOrdersBetween", repository -> repository.findValidOrdersBetween(never, never));
+        REPOSITORY_QUERIES.put("findValidOrdersAfter", repository -> repository.findValidOrdersAfter(LocalDateTime.of(9999, 1, 1, 0, 0)));
+        REPOSITORY_QUERIES.put("findValidOrdersBefore", repository -> repository.findValidOrdersBefore(never));
+        REPOSITORY_QUERIES.put("findValidOrdersPage", repository -> repository.findValidOrdersPage(never, never, Limit.of(1)));
+        REPOSITORY_QUERIES.put("findValidOrdersPageAfter",
+                repository -> repository.findValidOrdersPageAfter(never, never, never, "", Limit.of(1)));
+        REPOSITORY_QUERIES.put("findAllVersionsByOrderId", repository -> repository.findAllVersionsByOrderId(""));
+    }
+
+    // shards found through the order directory do not pass through RangeStrategy
+    private void traceRouting(String orderId, String shardKey) {
+        RequestTrace.shard(shardKey);
+        log.debug("[Service] Order ID: {} routing to {}", orderId, shardKey);
+    }
+
+    @Override
+    public OrderTable saveOrder(RequestOrder requestOrder) {
+        // Generate the order ID
+        log.debug("Save new order: {}", requestOrder);
+        String orderId = requestOrder.getOrderId();
+        log.debug("New order ID: {}", orderId);
+        OrderTable orderTable = toOrderTable(requestOrder);
+
+        // Get the shard key based on the order creation time
+        String shardKey = rangeStrategy.resolveShard(orderTable.getCreateTime());
+        traceRouting(orderId, shardKey);
+
+        // Applied in the shard's next group commit, with the directory entry that lets point reads
+        // find the shard without createTime
+        OrderTable saved = OrderGroupCommitter.await(groupCommitter.submit(shardKey, entityManager -> {
+            OrderTable version = saveVersion(entityManager, orderId, orderTable);
+            orderDirectory.put(orderId, shardKey, orderTable.getCreateTime());
+            return version;
+        }));
+        evictOrder(orderId, orderTable.getCreateTime());
+        return saved;
+    }
+
+    /**
+     * Save many orders: grouped by year shard, every group is a single write of the shard's group commit,
+     * so it is applied in one transaction. The shards are written at the same time
+     * <p>
+     * The order directory is its own database, it cannot join the shard transaction: its entries are written
+     * inside the write, before the shard commits. A directory failure fails the write, so no order is saved
+     * without its entry; an entry whose order then does not commit only sends a read to a shard that answers not found.
+     * */
+    @Override
+    public List<OrderTable> saveOrders(List<RequestOrder> requestOrders) {
+        Map<String, List<RequestOrder>> byShard = new LinkedHashMap<>();
+        for (RequestOrder requestOrder : requestOrders) {
+            byShard.computeIfAbsent(rangeStrategy.resolveShard(requestOrder.getCreateTime()), k -> new ArrayList<>()).add(requestOrder);
+        }
+        Map<String, CompletableFuture<List<OrderTable>>> writes = new LinkedHashMap<>();
+        for (Map.Entry<String, List<RequestOrder>> group : byShard.entrySet()) {
+            log.debug("Routing {} orders to shard {}", group.getValue().size(), group.getKey());
+            writes.put(group.getKey(), groupCommitter.submit(group.getKey(), entityManager -> {
+                List<OrderTable> saved = new ArrayList<>(group.getValue().size());
+                for (RequestOrder requestOrder : group.getValue()) {
+                    saved.add(saveVersion(entityManager, requestOrder.getOrderId(), toOrderTable(requestOrder)));
+                }
+                orderDirectory.putAll(group.getKey(), saved);
+                return saved;
+            }));
+        }
+
+        List<OrderTable> saved = new ArrayList<>(requestOrders.size());
+        for (Map.Entry<String, CompletableFuture<List<OrderTable>>> write : writes.entrySet()) {
+            List<OrderTable> shardOrders = OrderGroupCommitter.await(write.getValue());
+            saved.addAll(shardOrders);
+            shardOrders.forEach(order -> evictOrder(order.getId().getOrderId(), order.getCreateTime()));
+        }
+        return saved;
+    }
+
+    private static OrderTable toOrderTable(RequestOrder requestOrder) {
+        OrderTable orderTable = new OrderTable();
+        orderTable.setMemberId(requestOrder.getMemberId());
+        orderTable.setCreateTime(requestOrder.getCreateTime());
+        orderTable.setIsPaid(requestOrder.getIsPaid());
+        orderTable.setPrice(requestOrder.getPrice());
+        return orderTable;
+    }
+
+    /**
+     * Expire the current version of the order, if any, and insert the next one.
+     * Runs inside a group commit transaction
+     * */
+    private OrderTable saveVersion(EntityManager entityManager, String orderId, OrderTable orderTable) {
+        // Expire previous version
+        OrderTable current = findCurrent(entityManager, orderId);
+        if (current != null) {
+            current.setExpiredAt(LocalDateTime.now());
+            log.debug("Older version of Order: {} expired successfully", orderId);
+            orderTable.setId(new OrderKey(orderId, current.getId().getVersion() + 1));
+        } else {
+            orderTable.setId(new OrderKey(orderId, 1));
+        }
+
+        // Set the current version and not deleted
+        orderTable.setExpiredAt(null);
+        orderTable.setIsDeleted(0);
+        entityManager.merge(orderTable);
+        log.debug("Order {} version:{} saved successfully", orderId, orderTable.getId().getVersion());
+        return orderTable;
+    }
+
+    /**
+     * Soft delete the order
+     * 1. expiring the latest version
+     * 2. set the isDeleted flag to true
+     * */
+    @Override
+    public void deleteOrder(OrderTable orderTable) {
+        String orderId = orderTable.getId().getOrderId();
+        log.debug("Delete Order: {}", orderId);
+        // Find shard
+        String shardKey = rangeStrategy.resolveShard(orderTable.getCreateTime());
+        traceRouting(orderId, shardKey);
+
+        // Applied in the shard's next group commit
+        OrderGroupCommitter.await(groupCommitter.submit(shardKey, entityManager -> {
+            // Expire previous version
+            OrderTable current = findCurrent(entityManager, orderId);
+            if (current != null) {
+                current.setExpiredAt(LocalDateTime.now());
+                log.debug("Older version of Order: {} expired successfully", orderId);
+
+                // Insert deleted record (for audit/history)
+                OrderTable deleted = new OrderTable();
+                BeanUtils.copyProperties(current, deleted);
+                deleted.setId(new OrderKey(orderId, current.getId().getVersion()+1));
+                deleted.setExpiredAt(null);
+                deleted.setIsDeleted(1);
+                entityManager.merge(deleted);
+                log.debug("Order {} deleted successfully", orderId);
+            }
+            return null;
+        }));
+        evictOrder(orderId, orderTable.getCreateTime());
+    }
+
+    /**
+     * Replace old versions and insert new ones
+     * Applied in the shard's next group commit, a stale version fails with "Version mismatch"
+     * */
+    @Override
+    public OrderTable updateOrder(OrderTable toUpdateOrder) {
+        String orderId = toUpdateOrder.getId().getOrderId();
+        String shardKey = rangeStrategy.resolveShard(toUpdateOrder.getCreateTime());
+
+        OrderTable updated = OrderGroupCommitter.await(groupCommitter.submitUpdate(shardKey, entityManager -> {
+            bumpVersion(entityManager, toUpdateOrder);
+            return toUpdateOrder;
+        }));
+        evictOrder(orderId, toUpdateOrder.getCreateTime());
+        return updated;
+    }
+
+    /**
+     * MVCC compare-and-set
+     * 1. expire the current version only if it is still the expected one
+     * 2. insert the next version in the same transaction
+     * Nothing is loaded, a conflict is detected from the affected row count of step 1
+     * */
+    private void bumpVersion(EntityManager entityManager, OrderTable toUpdateOrder) {
+        String orderId = toUpdateOrder.getId().getOrderId();
+        int expectedVersion = toUpdateOrder.getId().getVersion();
+        int expired = entityManager.createQuery(
+                        "UPDATE OrderTable o SET o.expiredAt = :now " +
+                        "WHERE o.id.orderId = :orderId AND o.id.version = :expected " +
+                        "AND o.expiredAt IS NULL AND o.isDeleted = 0")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("orderId", orderId)
+                .setParameter("expected", expectedVersion)
+                .executeUpdate();
+        log.debug("[MVCC] Expected: {}, expired rows: {}", expectedVersion, expired);
+        if (expired == 0) {
+            throw new OrderVersionConflictException(orderId, expectedVersion);
+        }
+
+        // Insert new version
+        int nextVersion = expectedVersion + 1;
+        OrderTable next = new OrderTable();
+        next.setId(new OrderKey(orderId, nextVersion));
+        next.setCreateTime(toUpdateOrder.getCreateTime());
+        next.setMemberId(toUpdateOrder.getMemberId());
+        next.setIsPaid(toUpdateOrder.getIsPaid());
+        next.setPrice(toUpdateOrder.getPrice());
+        next.setExpiredAt(null);
+        next.setIsDeleted(0);
+        entityManager.persist(next);
+        log.debug("Older version expired, new version set to {}", nextVersion);
+    }
+
+    /**
+     * Current version of the order, read inside the group commit transaction
+     * so it sees the writes queued before it in the same batch
+     * */
+    private OrderTable findCurrent(EntityManager entityManager, String orderId) {
+        return entityManager.createQuery(
+                        "SELECT o FROM OrderTable o WHERE o.id.orderId = :orderId AND o.expiredAt IS NULL AND o.isDeleted = 0",
+                        OrderTable.class)
+                .setParameter("orderId", orderId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Update with a manual transaction, retry and rollback.
+     * Used by /order/updateAndFail to demonstrate the rollback mechanism
+     * */
+    public OrderTable updateWithRetryAndRollback(OrderTable toUpdateOrder) {
+        String orderId = toUpdateOrder.getId().getOrderId();
+        log.debug("[Manual TX] Start transactional update for: {}", orderId);
+
+        // Retried only while the shard is locked (SQLITE_BUSY / SQLITE_LOCKED),
+        // a version conflict or any other failure is rolled back and thrown at once
+        int maxRetries = 3;
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            // Shard routing
+            String shardKey = rangeStrategy.resolveShard(toUpdateOrder.getCreateTime());
+            traceRouting(orderId, shardKey);
+            EntityManager newEm = null;
+            try {
+                ShardContext.setCurrentShard(shardKey);
+                newEm = em.getEntityManagerFactory().createEntityManager();
+                newEm.getTransaction().begin();
+
+                // MVCC compare-and-set: expire current, insert new version
+                bumpVersion(newEm, toUpdateOrder);
+
+                newEm.getTransaction().commit();
+                shardMetrics.updateAttempt(shardKey, attempt, "committed");
+                RequestTrace.event("committed", "attempt " + attempt);
+                log.debug("[Manual TX] Transaction committed on attempt {}", attempt);
+                evictOrder(orderId, toUpdateOrder.getCreateTime());
+                return toUpdateOrder;
+            } catch (OrderVersionConflictException e) {
+                // the same expected version can only conflict again
+                shardMetrics.mvccConflict(shardKey);
+                shardMetrics.updateAttempt(shardKey, attempt, "conflict");
+                log.warn("Rolling back transaction due to: {}", e.getMessage());
+                rollback(newEm);
+                throw e;
+            } catch (RuntimeException e) {
+                rollback(newEm);
+                boolean locked = shardMetrics.sqliteBusy(shardKey, e) || e instanceof CannotAcquireLockException;
+                if (!locked) {
+                    shardMetrics.updateAttempt(shardKey, attempt, "failed");
+                    log.error("Rolling back transaction due to: {}", e.getMessage());
+                    throw e;
+                }
+                shardMetrics.updateAttempt(shardKey, attempt, "locked");
+                log.error("DB locked. Attempt {}/{} failed. Retrying...", attempt, maxRetries);
+                sleep(attempt * 100L);
+            } finally {
+                if (newEm != null) {
+                    newEm.close();
+                }
+                ShardContext.clear();
+            }
+        }
+        throw new IllegalStateException("All retry attempts failed for update");
+    }
+
+    private void rollback(EntityManager entityManager) {
+        if (entityManager != null && entityManager.getTransaction().isActive()) {
+            entityManager.getTransaction().rollback();
+        }
+    }
+
+    private void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException ignored) {}
+    }
+
+    @Override
+    public List<OrderTable> findByCreateTimeBetween(String startDate, String endDate) {
+        ScatterGather.Result<OrderTable> result = scatterGather.gather(rangeSources(startDate, endDate));
+        if (result.isPartial()) {
+            throw new IllegalStateException("Order shards did not answer: " + result.getMissing());
+        }
+        return result.getItems();
+    }
+
+    /**
+     * One query per order shard covered by the range, to be run concurrently.
+     * Every shard only holds its own years, so each one is asked for the whole range
+     * */
+    public Map<String, Callable<List<OrderTable>>> rangeSources(String startDate, String endDate) {
+        log.debug("Find Order between: {}, {}", startDate, endDate);
+        // Transform the String date "2024-04-25" to a LocalDateTime object
+        LocalDateTime startTime = LocalDate.parse(startDate).atStartOfDay();
+        LocalDateTime endTime = LocalDate.parse(endDate).atTime(LocalTime.MAX);
+        Set<String> shardKeys = coveredShards(startTime, endTime);
+        log.debug("Order range {} - {} covers shards {}", startDate, endDate, shardKeys);
+
+        Map<String, Callable<List<OrderTable>>> sources = new LinkedHashMap<>();
+        for (String shardKey : shardKeys) {
+            sources.put(shardKey, () -> {
+                try {
+                    ShardContext.setCurrentShardForRead(shardKey);
+                    return orderRepository.findValidOrdersBetween(startTime, endTime);
+                } finally {
+                    ShardContext.clear();
+                }
+            });
+        }
+        return sources;
+    }
+
+    /**
+     * Order shards holding the range, oldest first
+     * */
+    private Set<String> coveredShards(LocalDateTime startTime, LocalDateTime endTime) {
+        Set<String> shardKeys = new LinkedHashSet<>();
+        shardKeys.add(rangeStrategy.resolveShard(startTime));
+        for (int year = startTime.getYear() + 1; year <= endTime.getYear(); year++) {
+            shardKeys.add(rangeStrategy.resolveShard(LocalDateTime.of(year, 1, 1, 0, 0)));
+        }
+        return shardKeys;
+    }
+
+    /**
+     * Up to limit local orders of the range after the cursor, ordered by (createTime, orderId).
+     * The shards hold disjoint years, so they are read oldest first until the page is full
+     * */
+    public List<OrderTable> findRangePage(String startDate, String endDate, String cursor, int limit) {
+        LocalDateTime startTime = LocalDate.parse(startDate).atStartOfDay();
+        LocalDateTime endTime = LocalDate.parse(endDate).atTime(LocalTime.MAX);
+        OrderPage.Cursor after = OrderPage.decodeCursor(cursor);
+        List<OrderTable> page = new ArrayList<>(limit);
+        for (String shardKey : coveredShards(startTime, endTime)) {
+            try {
+                ShardContext.setCurrentShardForRead(shardKey);
+                Limit remaining = Limit.of(limit - page.size());
+                page.addAll(after == null
+                        ? orderRepository.findValidOrdersPage(startTime, endTime, remaining)
+                        : orderRepository.findValidOrdersPageAfter(startTime, endTime, after.createTime(), after.orderId(), remaining));
+            } finally {
+                ShardContext.clear();
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Pass every local order of the range to the consumer as it is read from the SQLite cursor,
+     * shard by shard, oldest first. Orders are detached once consumed so memory stays flat
+     * */
+    public void streamRange(String startDate, String endDate, Consumer<OrderTable> consumer) {
+        LocalDateTime startTime = LocalDate.parse(startDate).atStartOfDay();
+        LocalDateTime endTime = LocalDate.parse(endDate).atTime(LocalTime.MAX);
+        for (String shardKey : coveredShards(startTime, endTime)) {
+            EntityManager streamEm = null;
+            try {
+                ShardContext.setCurrentShardForRead(shardKey);
+                streamEm = em.getEntityManagerFactory().createEntityManager();
+                // Keeps the read connection for the whole scroll
+                streamEm.getTransaction().begin();
+                EntityManager scrolling = streamEm;
+                try (Stream<OrderTable> rows = streamEm.createQuery(
+                                "SELECT o FROM OrderTable o WHERE o.createTime BETWEEN :start AND :end " +
+                                "AND o.expiredAt IS NULL AND o.isDeleted = 0 " +
+                                "ORDER BY o.createTime ASC, o.id.orderId ASC", OrderTable.class)
+                        .setParameter("start", startTime)
+                        .setParameter("end", endTime)
+                        .getResultStream()) {
+                    rows.forEach(order -> {
+                        consumer.accept(order);
+                        scrolling.detach(order);
+                    });
+                }
+                streamEm.getTransaction().commit();
+            } finally {
+                rollback(streamEm);
+                if (streamEm != null) {
+                    streamEm.close();
+                }
+                ShardContext.clear();
+            }
+        }
+    }
+
+    /**
+     * Aggregates of the local shards for the range, partials added up per key
+     * */
+    public List<OrderAggregate> aggregate(String startDate, String endDate, OrderAggregate.GroupBy groupBy) {
+        ScatterGather.Result<OrderAggregate> result = scatterGather.gather(aggregateSources(startDate, endDate, groupBy));
+        if (result.isPartial()) {
+            throw new IllegalStateException("Order shards did not answer: " + result.getMissing());
+        }
+        return OrderAggregate.merge(result.getItems());
+    }
+
+    /**
+     * One aggregate query per order shard covered by the range, computed by SQLite
+     * so only the partial aggregates leave the shard.
+     * create_time is stored as epoch milliseconds of the JVM zone's local time (Timestamp.valueOf),
+     * so the bounds and the days are both taken in that zone. SQLite only knows UTC (or the process TZ),
+     * so it groups by quarter hour (every zone offset is a multiple of 15 minutes) and the quarters are
+     * folded into days of the zone here
+     * */
+    public Map<String, Callable<List<OrderAggregate>>> aggregateSources(String startDate, String endDate, OrderAggregate.GroupBy groupBy) {
+        ZoneId zone = ZoneId.systemDefault();
+        long startMillis = LocalDate.parse(startDate).atStartOfDay(zone).toInstant().toEpochMilli();
+        long endMillis = LocalDate.parse(endDate).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+        LocalDateTime startTime = LocalDate.parse(startDate).atStartOfDay();
+        LocalDateTime endTime = LocalDate.parse(endDate).atTime(LocalTime.MAX);
+        String key = switch (groupBy) {
+            case NONE -> "'" + OrderAggregate.TOTAL_KEY + "'";
+            case MEMBER -> "member_id";
+            case DAY -> "create_time / " + QUARTER_HOUR_MILLIS;
+        };
+        String sql = "SELECT " + key + " AS group_key, COUNT(*) AS cnt, " +
+                "COALESCE(SUM(price), 0) AS total_price, " +
+                "COALESCE(SUM(CASE WHEN is_paid = 1 THEN 1 ELSE 0 END), 0) AS paid_count, " +
+                "COALESCE(SUM(CASE WHEN is_paid = 1 THEN price ELSE 0 END), 0) AS paid_price " +
+                "FROM order_table WHERE create_time BETWEEN ? AND ? AND expired_at IS NULL AND is_deleted = 0" +
+                (groupBy == OrderAggregate.GroupBy.NONE ? "" : " GROUP BY group_key");
+
+        Map<String, Callable<List<OrderAggregate>>> sources = new LinkedHashMap<>();
+        for (String shardKey : coveredShards(startTime, endTime)) {
+            sources.put(shardKey, () -> {
+                try {
+                    ShardContext.setCurrentShardForRead(shardKey);
+                    List<OrderAggregate> partials = orderJdbcTemplate.query(connection -> {
+                        PreparedStatement statement = connection.prepareStatement(sql);
+                        // the gather stops waiting at its deadline, the statement stops there too
+                        statement.setQueryTimeout(ScatterGather.remainingStatementSeconds());
+                        statement.setLong(1, startMillis);
+                        statement.setLong(2, endMillis);
+                        return statement;
+                    }, (rs, rowNum) -> {
+                        OrderAggregate aggregate = new OrderAggregate();
+                        aggregate.setKey(rs.getString("group_key"));
+                        aggregate.setCount(rs.getLong("cnt"));
+                        aggregate.setTotalPrice(rs.getLong("total_price"));
+                        aggregate.setPaidCount(rs.getLong("paid_count"));
+                        aggregate.setPaidPrice(rs.getLong("paid_price"));
+                        aggregate.setUnpaidCount(aggregate.getCount() - aggregate.getPaidCount());
+                        aggregate.setUnpaidPrice(aggregate.getTotalPrice() - aggregate.getPaidPrice());
+                        return aggregate;
+                    });
+                    return groupBy == OrderAggregate.GroupBy.DAY ? quartersToDays(partials, zone) : partials;
+                } finally {
+                    ShardContext.clear();
+                }
+            });
+        }
+        return sources;
+    }
+
+    private static List<OrderAggregate> quartersToDays(List<OrderAggregate> quarters, ZoneId zone) {
+        for (OrderAggregate quarter : quarters) {
+            long quarterStart = Long.parseLong(quarter.getKey()) * QUARTER_HOUR_MILLIS;
+            quarter.setKey(Instant.ofEpochMilli(quarterStart).atZone(zone).toLocalDate().toString());
+        }
+        return OrderAggregate.merge(quarters);
+    }
+
+    /**
+     * Shard of an order: from createTime when given, else from a time-sortable order ID,
+     * else from the order directory
+     * @return null if createTime is missing and the order is unknown
+     * */
+    private String resolveOrderShard(String orderId, String createTime) {
+        if (createTime != null && !createTime.isEmpty()) {
+            // Get the shard key based on the order creation time
+            return rangeStrategy.resolveShard(LocalDate.parse(createTime).atStartOfDay());
+        }
+        String shardKey = rangeStrategy.resolveShardByOrderId(orderId);
+        if (shardKey != null) {
+            return shardKey;
+        }
+        OrderDirectory.Entry entry = orderDirectory.find(orderId);
+        return entry == null ? null : entry.shardKey();
+    }
+
+    @Override
+    public OrderTable findByIdAndCreateTime(String orderId, String createTime) {
+        log.debug("Find Order by ID: {}, createTime: {}", orderId, createTime);
+        String shardKey = resolveOrderShard(orderId, createTime);
+        if (shardKey == null) {
+            return null;
+        }
+        // Concurrent calls for the same order share one lookup, the near cache and Redis are checked before the shard
+        String cacheKey = orderCacheKey(orderId, shardKey);
+        return nearCache.getOrLoad(cacheKey, OrderTable.class, () -> orderLookups.call(cacheKey, () -> entityCache.getOrLoad(cacheKey, OrderTable.class, () -> {
+            try {
+                traceRouting(orderId, shardKey);
+                ShardContext.setCurrentShardForRead(shardKey);
+                // Find the order by ID
+                return orderRepository.findCurrentByOrderId(orderId).orElse(null);
+            } finally {
+                // Clear the shard context after use
+                ShardContext.clear();
+            }
+        })));
+    }
+
+    /**
+     * Cache key of a point read: ORDER_{orderId}:{shard read}. However the shard was found (createTime of any day,
+     * order ID, directory) the read of one shard has one key, and a wrong shard reads null under its own key
+     * */
+    private static String orderCacheKey(String orderId, String shardKey) {
+        return RedisConst.REDIS_KEY_ORDER_PREFIX + orderId + ":" + shardKey;
+    }
+
+    /**
+     * Drop the point reads of an order after a write, from the shard its createTime maps to
+     * */
+    private void evictOrder(String orderId, LocalDateTime createTime) {
+        String key = orderCacheKey(orderId, rangeStrategy.resolveShard(createTime));
+        entityCache.evict(key);
+        nearCache.invalidate(key);
+    }
+
+    @Override
+    public List<OrderTable> findAllVersions(String orderId, String createTime) {
+        try {
+            log.debug("Fetching all versions of order: {}", orderId);
+            String shardKey = resolveOrderShard(orderId, createTime);
+            if (shardKey == null) {
+                return List.of();
+            }
+            traceRouting(orderId, shardKey);
+            ShardContext.setCurrentShardForRead(shardKey);
+
+            // Assume latest createTime (or any createTime) is available for routing
+            OrderTable current = orderRepository.findCurrentByOrderId(orderId).orElse(null);
+            return (current == null) ? List.of() : orderRepository.findAllVersionsByOrderId(orderId);
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    /**
+     * Query plan of every OrderRepository query on every order shard,
+     * e.g. "SEARCH order_table USING INDEX idx_order_current_create_time_v1 (create_time>? AND create_time<?)"
+     * */
+    public Map<String, Map<String, List<String>>> explainQueryPlans() {
+        Map<String, Map<String, List<String>>> plans = new TreeMap<>();
+        for (Map.Entry<String, String> entry : shardingProperties.getLookup().entrySet()) {
+            if (!entry.getKey().startsWith(ShardConst.SHARD_ORDER_PREFIX)) {
+                continue;
+            }
+            String shardKey = entry.getValue();
+            Map<String, List<String>> shardPlans = new LinkedHashMap<>();
+            try {
+                ShardContext.setCurrentShardForRead(shardKey);
+                for (Map.Entry<String, Consumer<OrderRepository>> query : REPOSITORY_QUERIES.entrySet()) {
+                    List<String> statements = SqlCapture.capture(() -> query.getValue().accept(orderRepository));
+                    if (statements.isEmpty()) {
+                        throw new IllegalStateException("No SQL captured for " + query.getKey());
+                    }
+                    String sql = statements.get(0);
+                    // unbound parameters are NULL, enough for the planner
+                    Object[] params = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+                    shardPlans.put(query.getKey(), orderJdbcTemplate.query("EXPLAIN QUERY PLAN " + sql,
+                            (rs, rowNum) -> rs.getString("detail"), params));
+                }
+            } finally {
+                ShardContext.clear();
+            }
+            log.info("[QueryPlan] {}: {}", shardKey, shardPlans);
+            plans.put(shardKey, shardPlans);
+        }
+        return plans;
+    }
+}
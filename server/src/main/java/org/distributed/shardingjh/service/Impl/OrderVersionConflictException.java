@@ -0,0 +1,14 @@
+package org.distributed.shardingjh.service.Impl;
+
+/**
+ * MVCC rejection of an order update: the expected version is no longer the current one.
+ * Thrown before the write changes anything, so only that write fails and its batch still commits
+ *
+ * @author chris
+ * */
+public class OrderVersionConflictException extends IllegalStateException {
+
+    public OrderVersionConflictException(String orderId, int expectedVersion) {
+        super("Version mismatch: expected " + expectedVersion + " is not the current version of " + orderId);
+    }
+}
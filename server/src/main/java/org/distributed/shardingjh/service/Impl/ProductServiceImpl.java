@@ -2,6 +2,8 @@ package org.distributed.shardingjh.service.Impl;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.cache.NearCache;
+import org.distributed.shardingjh.common.constant.RedisConst;
 import org.distributed.shardingjh.controller.productcontroller.ProductRequest;
 import org.distributed.shardingjh.model.Product;
 import org.distributed.shardingjh.repository.product.ProductRepository;
@@ -17,9 +19,17 @@ public class ProductServiceImpl implements ProductService {
     @Resource
     ProductRepository productRepository;
 
+    @Resource
+    NearCache nearCache;
+
+    /**
+     * Runs on every node (the RabbitMQ fanout applies each change everywhere),
+     * so dropping the local near cache entry is enough
+     * */
     @Override
     public Product addOrUpdateProduct(ProductRequest productRequest) {
-        Product product = getProduct(productRequest.getId());
+        // not getProduct, the cached instance must not be modified
+        Product product = productRepository.findById(productRequest.getId()).orElse(null);
         if (product == null) {
             log.info("Creating new product with ID: {}", productRequest.getId());
             product = new Product();
@@ -27,13 +37,16 @@ public class ProductServiceImpl implements ProductService {
         }
         product.setName(productRequest.getName());
         product.setPrice(productRequest.getPrice());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        nearCache.invalidateLocal(List.of(RedisConst.REDIS_KEY_PRODUCT_PREFIX + saved.getId()));
+        return saved;
     }
 
     @Override
     public boolean deleteProduct(String id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            nearCache.invalidateLocal(List.of(RedisConst.REDIS_KEY_PRODUCT_PREFIX + id));
             return true;
         }
         return false;
@@ -41,7 +54,8 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Product getProduct(String id) {
-        return productRepository.findById(id).orElse(null);
+        return nearCache.getOrLoad(RedisConst.REDIS_KEY_PRODUCT_PREFIX + id, Product.class,
+                () -> productRepository.findById(id).orElse(null));
     }
 
     @Override
@@ -2,6 +2,7 @@ package org.distributed.shardingjh.service;
 
 import org.distributed.shardingjh.model.Member;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MemberService {
@@ -18,6 +19,17 @@ public interface MemberService {
      * */
     Member saveMember(Member member);
 
+    /**
+     * Save many members, one transaction per shard
+     * */
+    List<Member> saveMembers(List<Member> members);
+
+    /**
+     * Find many members, one query per shard
+     * Ids that are not found are left out
+     * */
+    List<Member> findByIds(Collection<String> ids);
+
     /**
      * Find all users
      * */
@@ -9,6 +9,8 @@ public interface OrderService {
 
     OrderTable saveOrder(RequestOrder orderTable);
 
+    List<OrderTable> saveOrders(List<RequestOrder> requestOrders);
+
     void deleteOrder(OrderTable order);
 
     OrderTable updateOrder(OrderTable order);
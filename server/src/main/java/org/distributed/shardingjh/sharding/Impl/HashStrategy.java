@@ -4,6 +4,7 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.distributed.shardingjh.common.constant.ShardConst;
 import org.distributed.shardingjh.config.ShardingProperties;
+import org.distributed.shardingjh.context.RequestTrace;
 import org.distributed.shardingjh.sharding.ShardingStrategy;
 import org.springframework.stereotype.Component;
 
@@ -21,9 +22,11 @@ public class HashStrategy implements ShardingStrategy {
             log.error("User ID cannot be null");
             throw new IllegalArgumentException("User ID cannot be null");
         }
-        log.info("Hash Code of user ID: {}", userId.hashCode());
         int shardIndex = Math.abs(userId.hashCode()) % ShardConst.TOTAL_SHARD_COMMON_COUNT + 1;
-        return shardingProperties.getLookup().get(ShardConst.SHARD_COMMON_PREFIX + shardIndex);
+        String shardKey = shardingProperties.getLookup().get(ShardConst.SHARD_COMMON_PREFIX + shardIndex);
+        // recorded in the request trace when the request is sampled, not logged on every call
+        RequestTrace.shard(shardKey);
+        return shardKey;
 
     }
 }
@@ -4,7 +4,9 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.distributed.shardingjh.common.constant.ShardConst;
 import org.distributed.shardingjh.config.ShardingProperties;
+import org.distributed.shardingjh.context.RequestTrace;
 import org.distributed.shardingjh.sharding.ShardingStrategy;
+import org.distributed.shardingjh.util.OrderIdGenerator;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
@@ -19,13 +21,18 @@ public class RangeStrategy implements ShardingStrategy {
 
     @Override
     public String resolveShard(Object key) {
+        String shardKey = resolveYearShard(key);
+        RequestTrace.shard(shardKey);
+        return shardKey;
+    }
+
+    private String resolveYearShard(Object key) {
         LocalDateTime date = (LocalDateTime) key;
         if (date == null) {
             log.error("Order Date cannot be null");
             throw new IllegalArgumentException("Invalid Order: Date cannot be null");
         }
         String year = String.valueOf(date.getYear());
-        log.info("[Sharding] Order Date: {}", date.toString());
         if (date.isEqual(LocalDate.of(2025, 1, 1).atStartOfDay())
                 || date.isAfter(LocalDate.of(2025, 1, 1).atStartOfDay())) {
             // e.g., key is "ORDER_2025"
@@ -39,4 +46,13 @@ public class RangeStrategy implements ShardingStrategy {
             return shardingProperties.getLookup().get(ShardConst.SHARD_ORDER_PREFIX + ShardConst.SHARD_ORDER_OLD);
         }
     }
+
+    /**
+     * Year shard of a time-sortable order ID, derived from the ID alone
+     * @return null for an MD5 order ID
+     * */
+    public String resolveShardByOrderId(String orderId) {
+        LocalDateTime createTime = OrderIdGenerator.createTimeOf(orderId);
+        return createTime == null ? null : resolveShard(createTime);
+    }
 }
@@ -0,0 +1,123 @@
+package org.distributed.shardingjh.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: concurrent calls with the same key share one in-flight lookup and all get its result
+ * (or its failure). Nothing is kept once the lookup is done, the next call starts a new lookup.
+ * A caller joining a running lookup may miss a write committed after that lookup started,
+ * the same as if both lookups had run side by side. Only use it for reads.
+ * A blocking caller waits for a running lookup at most joinTimeout, then looks up on its own.
+ *
+ * @author chris
+ * */
+@Slf4j
+public class SingleFlight<K, V> {
+
+    private static final Duration DEFAULT_JOIN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String name;
+
+    private final long joinTimeoutNanos;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlight(String name) {
+        this(name, DEFAULT_JOIN_TIMEOUT);
+    }
+
+    public SingleFlight(String name, Duration joinTimeout) {
+        this.name = name;
+        this.joinTimeoutNanos = joinTimeout.toNanos();
+    }
+
+    /**
+     * Blocking lookup: the first caller runs it on its own thread, the others wait for its result
+     * */
+    public V call(K key, Supplier<V> lookup) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            log.debug("[SingleFlight] {} joined in-flight lookup of {}", name, key);
+            return join(key, running, lookup);
+        }
+        V value = null;
+        Throwable failure = null;
+        try {
+            value = lookup.get();
+            return value;
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            // the joiners are released before a new lookup can start
+            if (failure == null) {
+                mine.complete(value);
+            } else {
+                mine.completeExceptionally(failure);
+            }
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V join(K key, CompletableFuture<V> running, Supplier<V> lookup) {
+        try {
+            return running.get(joinTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("[SingleFlight] {} lookup of {} still running after {} ms, looking up alone",
+                    name, key, TimeUnit.NANOSECONDS.toMillis(joinTimeoutNanos));
+            return lookup.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Non-blocking lookup: callers arriving while it runs share its result
+     * */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> lookup) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            log.debug("[SingleFlight] {} joined in-flight lookup of {}", name, key);
+            // a copy, so one caller cancelling its future does not cancel the others
+            return running.copy();
+        }
+        try {
+            lookup.get().whenComplete((value, e) -> {
+                if (e != null) {
+                    mine.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else {
+                    mine.complete(value);
+                }
+                inFlight.remove(key, mine);
+            });
+        } catch (Throwable t) {
+            // the lookup failed before returning its future (or returned none)
+            mine.completeExceptionally(t);
+            inFlight.remove(key, mine);
+            if (t instanceof Error error) {
+                throw error;
+            }
+        }
+        return mine.copy();
+    }
+}
@@ -0,0 +1,283 @@
+package org.distributed.shardingjh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.Resource;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.config.ServerRouter;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.controller.usercontroller.MemberBatchRequest;
+import org.distributed.shardingjh.controller.usercontroller.MemberIdsRequest;
+import org.distributed.shardingjh.controller.usercontroller.OrderBatchRequest;
+import org.distributed.shardingjh.model.Member;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.p2p.HopToken;
+import org.distributed.shardingjh.repository.order.OrderRepository;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.service.Impl.MemberServiceImpl;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.distributed.shardingjh.util.SignatureVerifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /user/saveBatch, /user/getBatch and /order/saveBatch on a ring of this node and one peer:
+ * the local part is handled here, the rest goes to the peer as one signed sub-batch and both are merged.
+ * A peer that fails leaves its items out and the answer is marked partial.
+ * A sub-batch from another node is handled here without being split again.
+ * */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BatchControllerTest {
+
+    @Resource
+    private MockMvc mockMvc;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private SignatureVerifier signatureVerifier;
+
+    @Resource
+    private FingerTable fingerTable;
+
+    @Resource
+    private MemberServiceImpl memberService;
+
+    @Resource
+    private OrderRepository orderRepository;
+
+    @Resource
+    private RangeStrategy rangeStrategy;
+
+    @Value("${router.server-url}")
+    private String currentNodeUrl;
+
+    @Value("${sha256.secret.key}")
+    private String secretKey;
+
+    private HttpServer peer;
+
+    private String peerUrl;
+
+    private final AtomicBoolean peerFails = new AtomicBoolean();
+
+    private final List<String> peerPaths = new ArrayList<>();
+
+    private final List<String> subBatchHeaders = new ArrayList<>();
+
+    private final Map<Integer, String> savedFinger = new TreeMap<>();
+
+    private final List<String> savedMembers = new ArrayList<>();
+
+    private final List<OrderTable> savedOrders = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // answers a sub-batch with its own items, as an owner saving or finding all of them would
+        peer.createContext("/", exchange -> {
+            synchronized (peerPaths) {
+                peerPaths.add(exchange.getRequestURI().getPath());
+                subBatchHeaders.add(String.valueOf(exchange.getRequestHeaders().getFirst(ServerRouter.SUB_BATCH_HEADER)));
+            }
+            JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+            Object data = switch (exchange.getRequestURI().getPath()) {
+                case "/user/getBatch" -> toList(body.get("ids"), id -> Map.of("id", id.asText(), "name", "peer"));
+                case "/user/saveBatch" -> toList(body.get("members"), member -> member);
+                default -> toList(body.get("orders"), order -> Map.of("id", Map.of("orderId", order.get("orderId").asText(), "version", 1)));
+            };
+            byte[] answer = objectMapper.writeValueAsBytes(MgrResponseDto.success(data));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(peerFails.get() ? 500 : 200, answer.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(answer);
+            }
+        });
+        peer.start();
+        peerUrl = "http://127.0.0.1:" + peer.getAddress().getPort();
+
+        // hashes 0..127 are this node's, 128..255 the peer's
+        savedFinger.putAll(fingerTable.finger);
+        fingerTable.finger.clear();
+        fingerTable.finger.put(127, currentNodeUrl);
+        fingerTable.finger.put(255, peerUrl);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        peer.stop(0);
+        fingerTable.finger.clear();
+        fingerTable.finger.putAll(savedFinger);
+        savedMembers.forEach(memberService::deleteMember);
+        for (OrderTable order : savedOrders) {
+            ShardContext.setCurrentShard(rangeStrategy.resolveShard(order.getCreateTime()));
+            try {
+                orderRepository.delete(order);
+            } finally {
+                ShardContext.clear();
+            }
+        }
+    }
+
+    private static List<Object> toList(JsonNode items, Function<JsonNode, Object> item) {
+        List<Object> list = new ArrayList<>();
+        items.forEach(node -> list.add(item.apply(node)));
+        return list;
+    }
+
+    // two ids owned by this node and two by the peer
+    private static List<String> ids(String prefix) {
+        List<String> local = new ArrayList<>();
+        List<String> forwarded = new ArrayList<>();
+        for (int i = 0; local.size() < 2 || forwarded.size() < 2; i++) {
+            String id = prefix + i;
+            List<String> owner = isLocal(id) ? local : forwarded;
+            if (owner.size() < 2) {
+                owner.add(id);
+            }
+        }
+        local.addAll(forwarded);
+        return local;
+    }
+
+    private static boolean isLocal(String id) {
+        return FingerTable.hashOf(id) <= 127;
+    }
+
+    private JsonNode send(String path, Object batch) throws Exception {
+        String answer = mockMvc.perform(asyncDispatch(mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch))
+                        .header("X-Signature", signatureVerifier.signBody(batch))).andReturn()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(answer);
+    }
+
+    private Set<String> texts(JsonNode items, String... path) {
+        Set<String> texts = new HashSet<>();
+        items.forEach(item -> {
+            JsonNode node = item;
+            for (String name : path) {
+                node = node.get(name);
+            }
+            texts.add(node.asText());
+        });
+        return texts;
+    }
+
+    private List<Member> members(List<String> ids) {
+        return ids.stream().map(id -> {
+            Member member = new Member();
+            member.setId(id);
+            member.setName("batch");
+            return member;
+        }).toList();
+    }
+
+    @Test
+    public void testSaveAndGetMembers_localAndForwardedMerged() throws Exception {
+        List<String> ids = ids("batch-member-");
+        savedMembers.addAll(ids.stream().filter(BatchControllerTest::isLocal).toList());
+        MemberBatchRequest batch = new MemberBatchRequest();
+        batch.setMembers(members(ids));
+
+        JsonNode saved = send("/user/saveBatch", batch);
+        assertEquals("0000", saved.get("code").asText());
+        assertNull(saved.get("partial"));
+        assertEquals(Set.copyOf(ids), texts(saved.get("data"), "id"));
+
+        MemberIdsRequest query = new MemberIdsRequest();
+        query.setIds(ids);
+        JsonNode found = send("/user/getBatch", query);
+        assertEquals("0000", found.get("code").asText());
+        assertEquals(Set.copyOf(ids), texts(found.get("data"), "id"));
+        // one sub-batch per request for the peer's two ids, marked as a sub-batch
+        assertEquals(List.of("/user/saveBatch", "/user/getBatch"), peerPaths);
+        assertEquals(List.of("1", "1"), subBatchHeaders);
+    }
+
+    @Test
+    public void testSaveOrders_failedPeer_partialWithLocalOrders() throws Exception {
+        peerFails.set(true);
+        List<String> ids = ids("batch-order-");
+        OrderBatchRequest batch = new OrderBatchRequest();
+        batch.setOrders(ids.stream().map(id -> {
+            RequestOrder order = new RequestOrder();
+            order.setOrderId(id);
+            order.setCreateTime(LocalDateTime.of(2031, 4, 1, 10, 0));
+            order.setMemberId("batch-member");
+            order.setIsPaid(0);
+            order.setPrice(10);
+            return order;
+        }).toList());
+
+        JsonNode saved = send("/order/saveBatch", batch);
+        Set<String> local = ids.stream().filter(BatchControllerTest::isLocal).collect(Collectors.toSet());
+        for (JsonNode order : saved.get("data")) {
+            savedOrders.add(objectMapper.treeToValue(order, OrderTable.class));
+        }
+
+        assertEquals("0000", saved.get("code").asText());
+        assertTrue(saved.get("partial").asBoolean());
+        assertTrue(saved.get("message").asText().contains(peerUrl));
+        assertEquals(local, texts(saved.get("data"), "id", "orderId"));
+    }
+
+    @Test
+    public void testSubBatchFromPeer_handledLocallyNotSplitAgain() throws Exception {
+        // the peer's ids, as sent by a node whose ring says they are ours
+        List<String> ids = ids("sub-batch-").stream().filter(id -> !isLocal(id)).toList();
+        MemberIdsRequest subBatch = new MemberIdsRequest();
+        subBatch.setIds(ids);
+        byte[] body = objectMapper.writeValueAsBytes(subBatch);
+        String hopToken = new HopToken(secretKey, peerUrl, fingerTable, 5000).issue("req-sub", "POST", "/user/getBatch", body);
+
+        String answer = mockMvc.perform(asyncDispatch(mockMvc.perform(post("/user/getBatch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body)
+                        .header("X-Signature", signatureVerifier.signBody(subBatch))
+                        .header(HopToken.HEADER, hopToken)
+                        .header(ServerRouter.SUB_BATCH_HEADER, "1")).andReturn()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("0000", objectMapper.readTree(answer).get("code").asText());
+        assertTrue(peerPaths.isEmpty());
+    }
+
+    @Test
+    public void testSaveMembers_withoutMembers_invalid() throws Exception {
+        JsonNode answer = send("/user/saveBatch", new MemberBatchRequest());
+        assertEquals("0102", answer.get("code").asText());
+        assertTrue(peerPaths.isEmpty());
+    }
+}
@@ -0,0 +1,38 @@
+package org.distributed.shardingjh;
+
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The cached ring version follows every change of the ring, whichever way the ring is changed
+ * */
+public class FingerTableVersionTest {
+
+    @Test
+    public void testVersion_cachedUntilRingChanges() {
+        FingerTable fingerTable = new FingerTable();
+        fingerTable.finger.put(10, "http://a:8081");
+        fingerTable.finger.put(200, "http://b:8082");
+        String version = fingerTable.version();
+        assertSame(version, fingerTable.version());
+        assertEquals(FingerTable.versionOf(new TreeMap<>(fingerTable.finger)), version);
+
+        fingerTable.finger.put(120, "http://c:8083");
+        String added = fingerTable.version();
+        assertNotEquals(version, added);
+
+        fingerTable.finger.values().removeIf("http://c:8083"::equals);
+        assertEquals(version, fingerTable.version());
+
+        fingerTable.finger.entrySet().removeIf(entry -> entry.getKey() == 200);
+        assertEquals(FingerTable.versionOf(Map.of(10, "http://a:8081")), fingerTable.version());
+
+        fingerTable.finger.clear();
+        assertEquals(FingerTable.versionOf(Map.of()), fingerTable.version());
+    }
+}
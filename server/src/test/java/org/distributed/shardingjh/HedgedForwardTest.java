@@ -0,0 +1,91 @@
+package org.distributed.shardingjh;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.config.ServerRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * router.hedge.enabled: a forwarded read stuck on the owner is sent again after the hedge delay,
+ * the faster answer is returned. The cancelled primary still counts in the peer's latency.
+ * */
+@Slf4j
+@SpringBootTest(properties = {"router.hedge.enabled=true", "router.hedge.max-delay-ms=50"})
+public class HedgedForwardTest {
+
+    @Resource
+    private ServerRouter serverRouter;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private HttpServer peer;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.setExecutor(Executors.newCachedThreadPool());
+        // the first request stalls, the next ones answer at once
+        peer.createContext("/user/get/", exchange -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException ignored) {}
+            }
+            byte[] body = "{\"code\":\"0000\",\"message\":\"Success\",\"data\":{\"id\":\"hot\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (Exception ignored) {
+                // the losing request was cancelled
+            }
+        });
+        peer.start();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        peer.stop(0);
+    }
+
+    @Test
+    public void testForwardGetAsync_slowOwner_hedgeAnswers() throws Exception {
+        String peerUrl = "http://127.0.0.1:" + peer.getAddress().getPort();
+        String peerTag = "127.0.0.1:" + peer.getAddress().getPort();
+
+        long start = System.nanoTime();
+        MgrResponseDto<Object> response = serverRouter.<Object>forwardGetAsync(peerUrl, "/user/get/hot", "sig")
+                .get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Hedged read answered in {} ms", elapsedMs);
+
+        assertEquals("0000", response.getCode());
+        assertTrue(elapsedMs < 1500, "answer should not wait for the stalled request");
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.counter("internode.forward.hedged", "peer", peerTag).count());
+        assertEquals(1, meterRegistry.counter("internode.forward.hedge.wins", "peer", peerTag).count());
+        // the hedge's answer and the cancelled primary, which had run at least the hedge delay
+        Timer latency = meterRegistry.get("internode.forward.latency").tag("peer", peerTag).timer();
+        assertEquals(2, latency.count());
+        assertTrue(latency.max(TimeUnit.MILLISECONDS) >= 50);
+    }
+}
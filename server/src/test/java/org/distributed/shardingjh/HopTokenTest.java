@@ -0,0 +1,78 @@
+package org.distributed.shardingjh;
+
+import org.distributed.shardingjh.config.InboundBodyFilter;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.p2p.HopToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A hop token verifies only for the same method, path and body bytes, before it expires and from a node of the ring.
+ * */
+public class HopTokenTest {
+
+    private static final String SECRET_KEY = "myShardingJHSecretKey";
+
+    private static final String ENTRY = "http://127.0.0.1:8081";
+
+    private static final byte[] BODY = "{\"id\":\"m1\",\"name\":\"hop\"}".getBytes(StandardCharsets.UTF_8);
+
+    private FingerTable fingerTable;
+
+    private HopToken entry;
+
+    private HopToken owner;
+
+    @BeforeEach
+    public void setup() {
+        fingerTable = new FingerTable();
+        fingerTable.addEntry(64, ENTRY);
+        fingerTable.addEntry(128, "http://127.0.0.1:8082");
+        entry = new HopToken(SECRET_KEY, ENTRY, fingerTable, 5000);
+        owner = new HopToken(SECRET_KEY, "http://127.0.0.1:8082", fingerTable, 5000);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testVerify_sameRequestOnly() {
+        String token = entry.issue("req-1", "POST", "/user/save", BODY);
+
+        assertTrue(owner.verify(token, "POST", "/user/save", BODY));
+        assertFalse(owner.verify(token, "POST", "/user/update", BODY));
+        assertFalse(owner.verify(token, "POST", "/user/save", "{\"id\":\"m2\",\"name\":\"hop\"}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(owner.verify(null, "POST", "/user/save", BODY));
+        assertFalse(owner.verify("1.2.3", "POST", "/user/save", BODY));
+        assertFalse(new HopToken("otherKey", "http://127.0.0.1:8082", fingerTable, 5000).verify(token, "POST", "/user/save", BODY));
+    }
+
+    @Test
+    public void testVerify_expiredOrUnknownNode() {
+        assertFalse(owner.verify(new HopToken(SECRET_KEY, ENTRY, fingerTable, -1).issue("req-1", "POST", "/user/save", BODY),
+                "POST", "/user/save", BODY));
+        assertFalse(owner.verify(new HopToken(SECRET_KEY, "http://10.0.0.9:8089", fingerTable, 5000).issue("req-1", "POST", "/user/save", BODY),
+                "POST", "/user/save", BODY));
+    }
+
+    @Test
+    public void testTrustsCurrentRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/user/save");
+        request.setAttribute(InboundBodyFilter.BODY_ATTRIBUTE, BODY);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        assertFalse(owner.trustsCurrentRequest());
+
+        request.addHeader(HopToken.HEADER, entry.issue("req-1", "POST", "/user/save", BODY));
+        assertTrue(owner.trustsCurrentRequest());
+    }
+}
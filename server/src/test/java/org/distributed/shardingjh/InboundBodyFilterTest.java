@@ -0,0 +1,84 @@
+package org.distributed.shardingjh;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import org.distributed.shardingjh.config.InboundBodyFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Signed JSON bodies are kept as received and can still be read, blocking or with a ReadListener;
+ * the other requests are not buffered.
+ * */
+public class InboundBodyFilterTest {
+
+    private static final byte[] BODY = "{\"id\":\"m-1\",\"name\":\"body\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContentType("application/json");
+        request.setContent(BODY);
+        return request;
+    }
+
+    @Test
+    public void testSignedPath_bufferedAndReadableWithListener() throws Exception {
+        MockHttpServletRequest request = request("/user/save");
+        AtomicReference<ServletRequest> passed = new AtomicReference<>();
+
+        new InboundBodyFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> passed.set(req));
+
+        assertArrayEquals(BODY, (byte[]) request.getAttribute(InboundBodyFilter.BODY_ATTRIBUTE));
+        ServletInputStream in = passed.get().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> calls = new ArrayList<>();
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                calls.add("data");
+                byte[] buffer = new byte[8];
+                while (in.isReady() && !in.isFinished()) {
+                    int n = in.read(buffer);
+                    if (n > 0) {
+                        read.write(buffer, 0, n);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                calls.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), calls);
+        assertArrayEquals(BODY, read.toByteArray());
+    }
+
+    @Test
+    public void testUnsignedPath_notBuffered() throws Exception {
+        MockHttpServletRequest request = request("/api/file/upload");
+        AtomicReference<ServletRequest> passed = new AtomicReference<>();
+
+        new InboundBodyFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> passed.set(req));
+
+        assertNull(request.getAttribute(InboundBodyFilter.BODY_ATTRIBUTE));
+        assertSame(request, passed.get());
+    }
+}
@@ -0,0 +1,125 @@
+package org.distributed.shardingjh;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.response.MgrResponseDto;
+import org.distributed.shardingjh.config.ServerRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consecutive requests to the same peer share one kept-alive connection, blocking or async.
+ * Async forwarding completes the future with the peer's response, or fails it like RestTemplate would.
+ * */
+@Slf4j
+@SpringBootTest
+public class InterNodeHttpReuseTest {
+
+    @Resource(name = "interNodeRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private ServerRouter serverRouter;
+
+    private HttpServer peer;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.createContext("/heartbeat/health", exchange -> {
+            byte[] body = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        peer.createContext("/user/get/", exchange -> {
+            boolean known = exchange.getRequestURI().getPath().endsWith("/known")
+                    && "sig".equals(exchange.getRequestHeaders().getFirst("X-Signature"));
+            byte[] body = "{\"code\":\"0000\",\"message\":\"Success\",\"data\":{\"id\":\"known\"}}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (!known) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        peer.start();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        peer.stop(0);
+    }
+
+    @Test
+    public void testSequentialRequests_reuseOneConnection() {
+        String url = "http://127.0.0.1:" + peer.getAddress().getPort() + "/heartbeat/health";
+        double createdBefore = meterRegistry.counter("internode.http.connections.created", "client", "internode").count();
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(restTemplate.getForObject(url, String.class).contains("UP"));
+        }
+
+        double created = meterRegistry.counter("internode.http.connections.created", "client", "internode").count() - createdBefore;
+        double requests = meterRegistry.counter("internode.http.requests",
+                "peer", "127.0.0.1:" + peer.getAddress().getPort(), "client", "internode").count();
+        log.info("{} requests over {} new connections", requests, created);
+        assertEquals(20, requests);
+        assertEquals(1, created);
+    }
+
+    @Test
+    public void testForwardGetAsync_completesWithPeerResponse() throws Exception {
+        String peerUrl = "http://127.0.0.1:" + peer.getAddress().getPort();
+
+        CompletableFuture<MgrResponseDto<Object>> ok = serverRouter.forwardGetAsync(peerUrl, "/user/get/known", "sig");
+        MgrResponseDto<Object> response = ok.get(5, TimeUnit.SECONDS);
+        assertEquals("0000", response.getCode());
+        assertNotNull(response.getData());
+
+        CompletableFuture<MgrResponseDto<Object>> failed = serverRouter.forwardGetAsync(peerUrl, "/user/get/other", "sig");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RestClientResponseException.class, e.getCause());
+        assertEquals(500, ((RestClientResponseException) e.getCause()).getStatusCode().value());
+    }
+
+    @Test
+    public void testSequentialAsyncRequests_reuseOneConnection() throws Exception {
+        String peerUrl = "http://127.0.0.1:" + peer.getAddress().getPort();
+        double createdBefore = meterRegistry.counter("internode.http.connections.created", "client", "internode-async").count();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("0000", serverRouter.forwardGetAsync(peerUrl, "/user/get/known", "sig").get(5, TimeUnit.SECONDS).getCode());
+        }
+
+        double created = meterRegistry.counter("internode.http.connections.created", "client", "internode-async").count() - createdBefore;
+        assertEquals(10, meterRegistry.counter("internode.http.requests",
+                "peer", "127.0.0.1:" + peer.getAddress().getPort(), "client", "internode-async").count());
+        assertEquals(1, created);
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.UUID;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -80,10 +81,10 @@ public class MemberServiceLatencyTest {
         String bodyJson = SignatureUtil.toCanonicalJson(localMember, objectMapper);
         String signature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
         long startLocal = System.nanoTime();
-        mockMvc.perform(MockMvcRequestBuilders.post("/user/save")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.post("/user/save")
                                     .contentType(MediaType.APPLICATION_JSON)
                                     .content(bodyJson)
-                                    .header("X-Signature", signature))
+                                    .header("X-Signature", signature)).andReturn()))
                             .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("0000"));
         long endLocal = System.nanoTime();
@@ -93,10 +94,10 @@ public class MemberServiceLatencyTest {
         String remoteJson = SignatureUtil.toCanonicalJson(remoteMember, objectMapper);
         String remoteSignature = EncryptUtil.hmacSha256(remoteJson, SECRET_KEY);
         long startRemote = System.nanoTime();
-        mockMvc.perform(MockMvcRequestBuilders.post("/user/save")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.post("/user/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(remoteJson)
-                        .header("X-Signature", remoteSignature))
+                        .header("X-Signature", remoteSignature)).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("0000"));
         long endRemote = System.nanoTime();
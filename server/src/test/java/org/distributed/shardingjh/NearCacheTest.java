@@ -0,0 +1,134 @@
+package org.distributed.shardingjh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.distributed.shardingjh.cache.NearCache;
+import org.distributed.shardingjh.gossip.GossipMsg;
+import org.distributed.shardingjh.gossip.GossipService;
+import org.distributed.shardingjh.model.Member;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Near cache hits, invalidation of this node and of the others through CACHE_INVALIDATE gossip.
+ * */
+public class NearCacheTest {
+
+    private static final String SELF = "http://127.0.0.1:8081";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GossipService gossipService;
+
+    private NearCache cache;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        gossipService = mock(GossipService.class);
+        FingerTable fingerTable = new FingerTable();
+        fingerTable.addEntry(64, SELF);
+        fingerTable.addEntry(128, "http://127.0.0.1:8082");
+        cache = new NearCache(meterRegistry, new ObjectMapper(), gossipService, fingerTable, true, 1 << 20, 60, SELF);
+    }
+
+    private static Member member(String id) {
+        Member member = new Member();
+        member.setId(id);
+        member.setName("near");
+        return member;
+    }
+
+    @Test
+    public void testGetOrLoad_secondReadIsHit() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("m1", cache.getOrLoad("USER_m1", Member.class, () -> {
+                loads.incrementAndGet();
+                return member("m1");
+            }).getId());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "near").tag("result", "hit").functionCounter().count());
+
+        // misses are not kept here
+        cache.getOrLoad("USER_none", Member.class, () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        cache.getOrLoad("USER_none", Member.class, () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testInvalidate_sentToOtherNodesAndAppliedThere() {
+        cache.put("USER_m1", member("m1"));
+        cache.invalidate("ORDER_o1:", "ORDER_o1:2024-05-01");
+        cache.flushInvalidations();
+
+        ArgumentCaptor<GossipMsg> sent = ArgumentCaptor.forClass(GossipMsg.class);
+        verify(gossipService, times(1)).sendToAllNodes(sent.capture(), anyList());
+        assertEquals(GossipMsg.Type.CACHE_INVALIDATE, sent.getValue().getMsgType());
+        assertEquals(SELF, sent.getValue().getSenderId());
+        assertEquals(List.of("USER_m1", "ORDER_o1:", "ORDER_o1:2024-05-01"), List.of(sent.getValue().getMsgContent().split("\n")));
+
+        // nothing queued, nothing sent
+        cache.flushInvalidations();
+        verifyNoMoreInteractions(gossipService);
+
+        // the same message received by another node drops its copy
+        cache.put("USER_m1", member("m1"));
+        cache.onInvalidateGossip(sent.getValue().getMsgContent());
+        AtomicInteger loads = new AtomicInteger();
+        cache.getOrLoad("USER_m1", Member.class, () -> {
+            loads.incrementAndGet();
+            return member("m1");
+        });
+        assertEquals(1, loads.get());
+        assertEquals(3, meterRegistry.counter("cache.near.invalidations", "source", "remote").count());
+    }
+
+    @Test
+    public void testGetOrLoad_invalidatedWhileLoading_notCached() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getOrLoad("USER_m2", Member.class, () -> {
+            loads.incrementAndGet();
+            // a write lands while this read is at the database
+            cache.invalidate("USER_m2");
+            return member("m2");
+        });
+        cache.getOrLoad("USER_m2", Member.class, () -> {
+            loads.incrementAndGet();
+            return member("m2");
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetOrLoad_otherKeyInvalidatedWhileLoading_cached() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            cache.getOrLoad("USER_m3", Member.class, () -> {
+                loads.incrementAndGet();
+                // writes and gossip of other keys do not keep this one out of the cache
+                cache.invalidate("USER_m4");
+                cache.onInvalidateGossip("USER_m5");
+                return member("m3");
+            });
+        }
+        assertEquals(1, loads.get());
+    }
+}
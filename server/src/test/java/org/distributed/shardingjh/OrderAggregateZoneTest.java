@@ -0,0 +1,96 @@
+package org.distributed.shardingjh;
+
+import jakarta.annotation.Resource;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.model.OrderKey;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.repository.order.OrderAggregate;
+import org.distributed.shardingjh.repository.order.OrderRepository;
+import org.distributed.shardingjh.service.Impl.OrderServiceImpl;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DAY aggregates follow the node's zone, not UTC: on a UTC+05:30 node an order at 00:10
+ * is still on its local day (it is the day before in UTC) and one at 23:50 does not spill into the next day
+ * */
+@SpringBootTest
+public class OrderAggregateZoneTest {
+
+    @Resource
+    private OrderServiceImpl orderService;
+
+    @Resource
+    private OrderRepository orderRepository;
+
+    @Resource
+    private RangeStrategy rangeStrategy;
+
+    private final List<OrderTable> saved = new ArrayList<>();
+
+    private TimeZone defaultZone;
+
+    private String shardKey;
+
+    @BeforeEach
+    public void setup() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+
+        LocalDateTime day = LocalDateTime.of(2031, 3, 2, 0, 0);
+        shardKey = rangeStrategy.resolveShard(day);
+        ShardContext.setCurrentShard(shardKey);
+        try {
+            saved.add(orderRepository.save(order("ZONE-0", day.minusMinutes(10))));
+            saved.add(orderRepository.save(order("ZONE-1", day.plusMinutes(10))));
+            saved.add(orderRepository.save(order("ZONE-2", day.plusHours(23).plusMinutes(50))));
+            saved.add(orderRepository.save(order("ZONE-3", day.plusDays(1).plusMinutes(10))));
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ShardContext.setCurrentShard(shardKey);
+        try {
+            orderRepository.deleteAll(saved);
+        } finally {
+            ShardContext.clear();
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    private static OrderTable order(String orderId, LocalDateTime createTime) {
+        OrderTable order = new OrderTable();
+        order.setId(new OrderKey(orderId, 1));
+        order.setCreateTime(createTime);
+        order.setMemberId("zone-member");
+        order.setIsPaid(0);
+        order.setPrice(10);
+        order.setIsDeleted(0);
+        return order;
+    }
+
+    @Test
+    public void testDayBucketsInNodeZone() {
+        List<OrderAggregate> byDay = orderService.aggregate("2031-03-02", "2031-03-02", OrderAggregate.GroupBy.DAY);
+        assertEquals(1, byDay.size());
+        assertEquals("2031-03-02", byDay.get(0).getKey());
+        assertEquals(2, byDay.get(0).getCount());
+
+        List<OrderAggregate> threeDays = orderService.aggregate("2031-03-01", "2031-03-03", OrderAggregate.GroupBy.DAY);
+        assertEquals(List.of("2031-03-01", "2031-03-02", "2031-03-03"), threeDays.stream().map(OrderAggregate::getKey).toList());
+        assertEquals(List.of(1L, 2L, 1L), threeDays.stream().map(OrderAggregate::getCount).toList());
+    }
+}
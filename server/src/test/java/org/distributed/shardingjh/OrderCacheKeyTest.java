@@ -0,0 +1,71 @@
+package org.distributed.shardingjh;
+
+import jakarta.annotation.Resource;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.repository.order.OrderRepository;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.service.Impl.OrderServiceImpl;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A point read cached with any createTime of the order's shard is dropped by a write to the order,
+ * not only the read made with the order's own day
+ * */
+@SpringBootTest(properties = "cache.near.enabled=true")
+public class OrderCacheKeyTest {
+
+    private static final LocalDateTime CREATE_TIME = LocalDateTime.of(2025, 6, 15, 10, 0);
+
+    @Resource
+    private OrderServiceImpl orderService;
+
+    @Resource
+    private OrderRepository orderRepository;
+
+    @Resource
+    private RangeStrategy rangeStrategy;
+
+    private String orderId;
+
+    @AfterEach
+    public void cleanup() {
+        ShardContext.setCurrentShard(rangeStrategy.resolveShard(CREATE_TIME));
+        try {
+            orderRepository.deleteAll(orderRepository.findAllVersionsByOrderId(orderId));
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    @Test
+    public void testUpdate_evictsReadsOfOtherDaysOfTheShard() {
+        RequestOrder requestOrder = new RequestOrder();
+        requestOrder.setCreateTime(CREATE_TIME);
+        requestOrder.setMemberId("cache-member");
+        requestOrder.setIsPaid(0);
+        requestOrder.setPrice(100);
+        requestOrder.generateOrderId();
+        orderId = requestOrder.getOrderId();
+        orderService.saveOrder(requestOrder);
+
+        // another day of the same year shard, then no createTime at all
+        OrderTable byOtherDay = orderService.findByIdAndCreateTime(orderId, "2025-01-02");
+        OrderTable byId = orderService.findByIdAndCreateTime(orderId, null);
+        assertEquals(0, byOtherDay.getIsPaid());
+        assertEquals(0, byId.getIsPaid());
+
+        byId.setIsPaid(1);
+        orderService.updateOrder(byId);
+
+        assertEquals(1, orderService.findByIdAndCreateTime(orderId, "2025-01-02").getIsPaid());
+        assertEquals(1, orderService.findByIdAndCreateTime(orderId, null).getIsPaid());
+    }
+}
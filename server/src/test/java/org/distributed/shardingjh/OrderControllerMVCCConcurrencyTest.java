@@ -20,6 +20,7 @@ import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -66,10 +67,10 @@ public class OrderControllerMVCCConcurrencyTest {
         String bodyJson = SignatureUtil.toCanonicalJson(initialOrder, objectMapper);
         String signature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
         // Step 1: Save original order
-        String savedJson = mockMvc.perform(post("/order/save")
+        String savedJson = mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Signature", signature)
-                        .content(bodyJson))
+                        .content(bodyJson)).andReturn()))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
 
@@ -108,10 +109,10 @@ public class OrderControllerMVCCConcurrencyTest {
             // Generate signature for the update
             String bodyJson = SignatureUtil.toCanonicalJson(order, objectMapper);
             String signature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
-            return mockMvc.perform(post("/order/update")
+            return mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/update")
                             .contentType(MediaType.APPLICATION_JSON)
                             .header("X-Signature", signature)
-                            .content(bodyJson))
+                            .content(bodyJson)).andReturn()))
                     .andReturn().getResponse().getContentAsString();
         } catch (Exception e) {
             return "{\"code\":\"ERROR\",\"message\":\"" + e.getMessage() + "\"}";
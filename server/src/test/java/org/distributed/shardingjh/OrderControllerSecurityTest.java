@@ -18,6 +18,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDateTime;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -54,10 +55,10 @@ public class OrderControllerSecurityTest {
         String bodyJson = SignatureUtil.toCanonicalJson(initialOrder, objectMapper);
         String signature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/order/save")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(bodyJson)
-                        .header("X-Signature", signature))
+                        .header("X-Signature", signature)).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("0000")); // Assuming "0000" means success
     }
@@ -68,10 +69,10 @@ public class OrderControllerSecurityTest {
         // Use an invalid signature
         String invalidSignature = "invalid-signature";
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/order/save")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(bodyJson)
-                        .header("X-Signature", invalidSignature))
+                        .header("X-Signature", invalidSignature)).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("007"))
                 .andExpect(jsonPath("$.message").value("Unauthorized request"));
@@ -93,10 +94,10 @@ public class OrderControllerSecurityTest {
     public void testDelete_withValidSignature_shouldReturnSuccess() throws Exception {
         String bodyJson = SignatureUtil.toCanonicalJson(initialOrder, objectMapper);
         String saveSignature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
-        String savedJson = mockMvc.perform(post("/order/save")
+        String savedJson = mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(bodyJson)
-                        .header("X-Signature", saveSignature))
+                        .header("X-Signature", saveSignature)).andReturn()))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
         JsonNode jsonNode = objectMapper.readTree(savedJson);
@@ -104,10 +105,10 @@ public class OrderControllerSecurityTest {
         String dataDeleteJson = SignatureUtil.toCanonicalJson(toDeleteJson, objectMapper);;
 
         String signature = EncryptUtil.hmacSha256(dataDeleteJson, SECRET_KEY);
-        mockMvc.perform(MockMvcRequestBuilders.post("/order/delete")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.post("/order/delete")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(dataDeleteJson)
-                        .header("X-Signature", signature))
+                        .header("X-Signature", signature)).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("0000"));
     }
@@ -116,10 +117,10 @@ public class OrderControllerSecurityTest {
     public void testUpdate_withValidSignature_shouldReturnSuccess() throws Exception {
         String bodyJson = SignatureUtil.toCanonicalJson(initialOrder, objectMapper);
         String saveSignature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
-        String savedJson = mockMvc.perform(post("/order/save")
+        String savedJson = mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(bodyJson)
-                        .header("X-Signature", saveSignature))
+                        .header("X-Signature", saveSignature)).andReturn()))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
         log.info("Saved JSON: {}", savedJson);
@@ -129,10 +130,10 @@ public class OrderControllerSecurityTest {
         log.info("Update JSON: {}", dataUpdateJson);
 
         String signature = EncryptUtil.hmacSha256(dataUpdateJson, SECRET_KEY);
-        mockMvc.perform(MockMvcRequestBuilders.post("/order/update")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.post("/order/update")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(dataUpdateJson)
-                        .header("X-Signature", signature))
+                        .header("X-Signature", signature)).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("0000"));
     }
@@ -165,10 +166,10 @@ public class OrderControllerSecurityTest {
         // First save the order to ensure it exists
         String bodyJson = SignatureUtil.toCanonicalJson(initialOrder, objectMapper);
         String saveSignature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
-        String savedJson = mockMvc.perform(post("/order/save")
+        String savedJson = mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(bodyJson)
-                        .header("X-Signature", saveSignature))
+                        .header("X-Signature", saveSignature)).andReturn()))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
 
@@ -176,8 +177,8 @@ public class OrderControllerSecurityTest {
         String url = "/order/getOne?orderId="+orderId+"&createTime=2025-05-25";
         String signature = EncryptUtil.hmacSha256(url, SECRET_KEY);
 
-        mockMvc.perform(MockMvcRequestBuilders.get(url)
-                        .header("X-Signature", signature))
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.get(url)
+                        .header("X-Signature", signature)).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("0000"));
     }
@@ -188,16 +189,32 @@ public class OrderControllerSecurityTest {
         // First save the order to ensure it exists
         String bodyJson = SignatureUtil.toCanonicalJson(initialOrder, objectMapper);
         String saveSignature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
-        String savedJson = mockMvc.perform(post("/order/save")
+        String savedJson = mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(bodyJson)
-                        .header("X-Signature", saveSignature))
+                        .header("X-Signature", saveSignature)).andReturn()))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
 
         String url = "/order/history?orderId="+orderId+"&createTime=2025-05-25";
         String signature = EncryptUtil.hmacSha256(url, SECRET_KEY);
-        mockMvc.perform(MockMvcRequestBuilders.get(url)
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.get(url)
+                        .header("X-Signature", signature)).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value("0000"));
+    }
+
+    @Test
+    public void testQueryPlan_withoutSignature_shouldReturnUnauthorized() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/order/queryPlan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value("007"));
+    }
+
+    @Test
+    public void testQueryPlan_withValidSignature_shouldReturnSuccess() throws Exception {
+        String signature = EncryptUtil.hmacSha256("/order/queryPlan", SECRET_KEY);
+        mockMvc.perform(MockMvcRequestBuilders.get("/order/queryPlan")
                         .header("X-Signature", signature))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("0000"));
@@ -0,0 +1,79 @@
+package org.distributed.shardingjh;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.repository.order.OrderDirectory;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.service.Impl.OrderServiceImpl;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * A saved order can be read back by its id alone, the order directory gives the shard.
+ * An order is not saved without its directory entry
+ * */
+@Slf4j
+@SpringBootTest
+public class OrderDirectoryTest {
+
+    @Resource
+    private OrderServiceImpl orderService;
+
+    @MockitoSpyBean
+    private OrderDirectory orderDirectory;
+
+    @Resource
+    private RangeStrategy rangeStrategy;
+
+    @Test
+    public void testFindById_withoutCreateTime() {
+        RequestOrder requestOrder = new RequestOrder();
+        requestOrder.setMemberId("directory-member");
+        requestOrder.setCreateTime(LocalDateTime.of(2024, 8, 3, 9, 30));
+        requestOrder.setIsPaid(0);
+        requestOrder.setPrice(42);
+        requestOrder.generateOrderId();
+        orderService.saveOrder(requestOrder);
+
+        OrderDirectory.Entry entry = orderDirectory.find(requestOrder.getOrderId());
+        assertNotNull(entry);
+        assertEquals(rangeStrategy.resolveShard(requestOrder.getCreateTime()), entry.shardKey());
+        assertEquals(requestOrder.getCreateTime(), entry.createTime());
+
+        OrderTable found = orderService.findByIdAndCreateTime(requestOrder.getOrderId(), null);
+        assertNotNull(found);
+        assertEquals(42, found.getPrice());
+        assertFalse(orderService.findAllVersions(requestOrder.getOrderId(), null).isEmpty());
+
+        assertNull(orderService.findByIdAndCreateTime("unknown-order-id", null));
+    }
+
+    @Test
+    public void testSave_directoryDown_orderNotSaved() {
+        RequestOrder requestOrder = new RequestOrder();
+        requestOrder.setMemberId("directory-member");
+        requestOrder.setCreateTime(LocalDateTime.of(2024, 8, 4, 9, 30));
+        requestOrder.setIsPaid(0);
+        requestOrder.setPrice(43);
+        requestOrder.generateOrderId();
+        doThrow(new DataAccessResourceFailureException("order_directory.db is locked"))
+                .when(orderDirectory).put(eq(requestOrder.getOrderId()), any(), any());
+
+        assertThrows(DataAccessException.class, () -> orderService.saveOrder(requestOrder));
+
+        assertNull(orderDirectory.find(requestOrder.getOrderId()));
+        assertNull(orderService.findByIdAndCreateTime(requestOrder.getOrderId(), "2024-08-04"));
+    }
+}
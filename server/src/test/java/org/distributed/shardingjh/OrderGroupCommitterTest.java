@@ -0,0 +1,206 @@
+package org.distributed.shardingjh;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.distributed.shardingjh.config.ShardMetrics;
+import org.distributed.shardingjh.service.Impl.OrderGroupCommitter;
+import org.distributed.shardingjh.service.Impl.OrderVersionConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Group commit with a mocked persistence unit: one transaction per batch, rejections, fallback, failures and shutdown
+ * */
+public class OrderGroupCommitterTest {
+
+    private static final String SHARD = "shard_order_2025";
+
+    private EntityManagerFactory emf;
+
+    private EntityTransaction tx;
+
+    private OrderGroupCommitter committer;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        emf = mock(EntityManagerFactory.class);
+        tx = mock(EntityTransaction.class);
+        EntityManager em = mock(EntityManager.class);
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.getTransaction()).thenReturn(tx);
+        when(em.isOpen()).thenReturn(true);
+
+        committer = new OrderGroupCommitter();
+        ReflectionTestUtils.setField(committer, "emf", emf);
+        registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(committer, "shardMetrics", new ShardMetrics(registry));
+        ReflectionTestUtils.setField(committer, "maxBatchSize", 3);
+        // long enough for the three writes of a test to meet in one batch
+        ReflectionTestUtils.setField(committer, "maxLingerMicros", TimeUnit.SECONDS.toMicros(2));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        committer.shutdown();
+    }
+
+    private List<CompletableFuture<String>> submitThree(String failing, RuntimeException failure) {
+        return List.of("o1", "o2", "o3").stream()
+                .map(id -> committer.submit(SHARD, em -> {
+                    if (id.equals(failing)) {
+                        throw failure;
+                    }
+                    return id;
+                }))
+                .toList();
+    }
+
+    @Test
+    public void testBatchCommitsInOneTransaction() {
+        List<CompletableFuture<String>> writes = submitThree(null, null);
+
+        assertEquals(List.of("o1", "o2", "o3"), writes.stream().map(OrderGroupCommitter::await).toList());
+        verify(emf, times(1)).createEntityManager();
+        verify(tx, times(1)).begin();
+        verify(tx, times(1)).commit();
+    }
+
+    @Test
+    public void testRejectionFailsOnlyItsWrite() {
+        List<CompletableFuture<String>> writes = submitThree("o2", new OrderVersionConflictException("o2", 1));
+
+        assertEquals("o1", OrderGroupCommitter.await(writes.get(0)));
+        OrderVersionConflictException e = assertThrows(OrderVersionConflictException.class, () -> OrderGroupCommitter.await(writes.get(1)));
+        assertTrue(e.getMessage().contains("o2"));
+        assertEquals("o3", OrderGroupCommitter.await(writes.get(2)));
+        verify(tx, times(1)).commit();
+    }
+
+    @Test
+    public void testOtherFailureIsNotARejection() {
+        // not a version conflict: the batch is rolled back and every write runs alone
+        when(tx.isActive()).thenReturn(true);
+        List<CompletableFuture<String>> writes = submitThree("o2", new IllegalStateException("Session is closed"));
+
+        assertEquals("o1", OrderGroupCommitter.await(writes.get(0)));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> OrderGroupCommitter.await(writes.get(1)));
+        assertFalse(e instanceof OrderVersionConflictException);
+        assertEquals("o3", OrderGroupCommitter.await(writes.get(2)));
+        verify(emf, times(4)).createEntityManager();
+        verify(tx, times(2)).commit();
+    }
+
+    @Test
+    public void testFailedBatchFallsBackToOneByOne() {
+        // e.g. SQLITE_BUSY on the batch commit, then every write alone succeeds
+        doThrow(new RuntimeException("database is locked")).doNothing().when(tx).commit();
+        when(tx.isActive()).thenReturn(true);
+
+        List<CompletableFuture<String>> writes = submitThree(null, null);
+
+        assertEquals(List.of("o1", "o2", "o3"), writes.stream().map(OrderGroupCommitter::await).toList());
+        // the batch, then one transaction per write
+        verify(emf, times(4)).createEntityManager();
+        verify(tx, times(4)).commit();
+    }
+
+    @Test
+    public void testUpdateAttemptsRecorded() {
+        // the batch fails on commit, each write then runs alone
+        doThrow(new RuntimeException("database is locked")).doNothing().when(tx).commit();
+        when(tx.isActive()).thenReturn(true);
+
+        CompletableFuture<String> update = committer.submitUpdate(SHARD, em -> "o1");
+        CompletableFuture<String> rejected = committer.submitUpdate(SHARD, em -> {
+            throw new OrderVersionConflictException("o2", 1);
+        });
+        CompletableFuture<String> save = committer.submit(SHARD, em -> "o3");
+
+        assertEquals("o1", OrderGroupCommitter.await(update));
+        assertThrows(OrderVersionConflictException.class, () -> OrderGroupCommitter.await(rejected));
+        assertEquals("o3", OrderGroupCommitter.await(save));
+        assertEquals(2, registry.get("order.update.attempts").tags("attempt", "1", "outcome", "failed").counter().count());
+        assertEquals(1, registry.get("order.update.attempts").tags("attempt", "2", "outcome", "committed").counter().count());
+        assertEquals(1, registry.get("order.update.attempts").tags("attempt", "2", "outcome", "conflict").counter().count());
+        // plain writes are not update attempts
+        assertEquals(4, registry.get("order.update.attempts").counters().stream().mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    public void testErrorFailsBatchAndNextWriteGetsNewWriter() throws Exception {
+        CompletableFuture<String> broken = committer.submit(SHARD, em -> {
+            throw new NoClassDefFoundError("org/sqlite/Missing");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> broken.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NoClassDefFoundError.class, e.getCause());
+
+        // the writer is gone, a new one takes the next write
+        assertEquals("o4", committer.submit(SHARD, em -> "o4").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWritesQueuedBehindErrorGoToNewWriter() throws Exception {
+        ReflectionTestUtils.setField(committer, "maxBatchSize", 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> broken = committer.submit(SHARD, em -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new NoClassDefFoundError("org/sqlite/Missing");
+        });
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = committer.submit(SHARD, em -> "o2");
+
+        release.countDown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> broken.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NoClassDefFoundError.class, e.getCause());
+        // never ran on the stopped writer, so it is not failed with its Error
+        assertEquals("o2", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownFailsQueuedWrites() throws Exception {
+        ReflectionTestUtils.setField(committer, "maxBatchSize", 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = committer.submit(SHARD, em -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "o1";
+        });
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = committer.submit(SHARD, em -> "o2");
+
+        // interrupts the writer inside the first write, which still commits
+        committer.shutdown();
+
+        assertEquals("o1", first.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(committer.submit(SHARD, em -> "o3").isCompletedExceptionally());
+    }
+}
@@ -1,7 +1,7 @@
 package org.distributed.shardingjh;
 
 import lombok.extern.slf4j.Slf4j;
-import org.distributed.shardingjh.service.Impl.OrderIdGenerator;
+import org.distributed.shardingjh.util.OrderIdGenerator;
 import org.junit.jupiter.api.Test;
 
 import java.text.SimpleDateFormat;
@@ -54,4 +54,25 @@ public class OrderIdGeneratorTest {
         assertNotEquals(id1, id2, "Different memberIds should generate different orderIds");
         assertNotEquals(id1, id3, "Different createTimes should generate different orderIds");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSortableOrderId_encodesCreateTimeAndSorts() {
+        LocalDateTime earlier = LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999_000_000);
+        LocalDateTime later = LocalDateTime.of(2025, 1, 1, 0, 0, 0, 1_000_000);
+
+        String id1 = OrderIdGenerator.generateSortableOrderId(earlier, "user123");
+        String id2 = OrderIdGenerator.generateSortableOrderId(later, "user123");
+        String id3 = OrderIdGenerator.generateSortableOrderId(later, "user456");
+
+        log.info("Sortable Order IDs: {}, {}, {}", id1, id2, id3);
+        assertEquals(OrderIdGenerator.SORTABLE_ID_LENGTH, id1.length());
+        assertTrue(id1.compareTo(id2) < 0, "Later createTime should sort after");
+        assertNotEquals(id2, id3, "Different memberIds should generate different orderIds");
+        assertEquals(id1, OrderIdGenerator.generateSortableOrderId(earlier, "user123"), "Same input, same orderId");
+
+        assertEquals(earlier, OrderIdGenerator.createTimeOf(id1));
+        assertEquals(later, OrderIdGenerator.createTimeOf(id2));
+        assertNull(OrderIdGenerator.createTimeOf(OrderIdGenerator.generateOrderId(earlier, "user123")),
+                "MD5 order IDs carry no createTime");
+    }
+}
@@ -0,0 +1,51 @@
+package org.distributed.shardingjh;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.repository.order.OrderRepository;
+import org.distributed.shardingjh.service.Impl.OrderServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The order range queries must be served by an index, not a full scan of the shard.
+ * Every OrderRepository query gets a plan, taken of the SQL Hibernate generates for it
+ * */
+@Slf4j
+@SpringBootTest
+public class OrderQueryPlanTest {
+
+    @Resource
+    private OrderServiceImpl orderService;
+
+    @Test
+    public void testRangeQueries_useIndex() {
+        Map<String, Map<String, List<String>>> plans = orderService.explainQueryPlans();
+        assertFalse(plans.isEmpty());
+        Set<String> repositoryQueries = Arrays.stream(OrderRepository.class.getDeclaredMethods())
+                .filter(method -> method.isAnnotationPresent(Query.class))
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+        assertEquals(repositoryQueries, OrderServiceImpl.REPOSITORY_QUERIES.keySet());
+        plans.forEach((shard, shardPlans) -> {
+            shardPlans.forEach((query, plan) -> assertFalse(plan.isEmpty(), shard + " " + query + " has no plan"));
+            for (String query : List.of("findValidOrdersBetween", "findValidOrdersAfter", "findValidOrdersBefore")) {
+                String plan = String.join(" | ", shardPlans.get(query));
+                log.info("{} {}: {}", shard, query, plan);
+                assertTrue(plan.contains("USING INDEX idx_order_"), shard + " " + query + " does not use an index: " + plan);
+            }
+        });
+    }
+}
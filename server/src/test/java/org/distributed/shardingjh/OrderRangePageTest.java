@@ -0,0 +1,111 @@
+package org.distributed.shardingjh;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.model.OrderKey;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.repository.order.OrderAggregate;
+import org.distributed.shardingjh.repository.order.OrderPage;
+import org.distributed.shardingjh.repository.order.OrderRepository;
+import org.distributed.shardingjh.service.Impl.OrderServiceImpl;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset pages and the stream of a range return the same orders, in (createTime, orderId) order.
+ * Aggregates of the range are computed by the shard.
+ * */
+@Slf4j
+@SpringBootTest
+public class OrderRangePageTest {
+
+    @Resource
+    private OrderServiceImpl orderService;
+
+    @Resource
+    private OrderRepository orderRepository;
+
+    @Resource
+    private RangeStrategy rangeStrategy;
+
+    private final List<OrderTable> saved = new ArrayList<>();
+
+    private String shardKey;
+
+    @BeforeEach
+    public void setup() {
+        LocalDateTime base = LocalDateTime.of(2031, 3, 1, 10, 0);
+        shardKey = rangeStrategy.resolveShard(base);
+        ShardContext.setCurrentShard(shardKey);
+        try {
+            // two orders share a createTime to exercise the orderId tie-break
+            for (int i = 0; i < 5; i++) {
+                OrderTable order = new OrderTable();
+                order.setId(new OrderKey("PAGE-" + i, 1));
+                order.setCreateTime(base.plusMinutes(i == 4 ? 1 : i));
+                order.setMemberId("page-member");
+                order.setIsPaid(0);
+                order.setPrice(10 * i);
+                order.setIsDeleted(0);
+                saved.add(orderRepository.save(order));
+            }
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ShardContext.setCurrentShard(shardKey);
+        try {
+            orderRepository.deleteAll(saved);
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    @Test
+    public void testPagesAndStream_returnSameOrderedRows() {
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            List<OrderTable> page = orderService.findRangePage("2031-03-01", "2031-03-01", cursor, 2);
+            page.forEach(order -> paged.add(order.getId().getOrderId()));
+            cursor = page.size() < 2 ? null : OrderPage.encodeCursor(page.get(page.size() - 1));
+            pages++;
+        } while (cursor != null);
+
+        List<String> streamed = new ArrayList<>();
+        orderService.streamRange("2031-03-01", "2031-03-01", order -> streamed.add(order.getId().getOrderId()));
+
+        log.info("Paged in {} pages: {}, streamed: {}", pages, paged, streamed);
+        assertEquals(List.of("PAGE-0", "PAGE-1", "PAGE-4", "PAGE-2", "PAGE-3"), paged);
+        assertEquals(paged, streamed);
+    }
+
+    @Test
+    public void testAggregate_totalAndGroupedByMember() {
+        List<OrderAggregate> total = orderService.aggregate("2031-03-01", "2031-03-01", OrderAggregate.GroupBy.NONE);
+        assertEquals(1, total.size());
+        assertEquals(5, total.get(0).getCount());
+        assertEquals(100, total.get(0).getTotalPrice());
+        assertEquals(0, total.get(0).getPaidCount());
+        assertEquals(5, total.get(0).getUnpaidCount());
+
+        List<OrderAggregate> byMember = orderService.aggregate("2031-03-01", "2031-03-01", OrderAggregate.GroupBy.MEMBER);
+        assertEquals(1, byMember.size());
+        assertEquals("page-member", byMember.get(0).getKey());
+        assertEquals(100, byMember.get(0).getUnpaidPrice());
+    }
+}
@@ -20,6 +20,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -62,10 +63,10 @@ public class OrderRollBackTest {
         String bodyJson = SignatureUtil.toCanonicalJson(initialOrder, objectMapper);
         String signature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
 
-        mockMvc.perform(post("/order/save")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Signature", signature)
-                        .content(bodyJson))
+                        .content(bodyJson)).andReturn()))
                 .andExpect(status().isOk());
 
         // Step 2: Prepare update (will be rolled back)
@@ -80,10 +81,10 @@ public class OrderRollBackTest {
         try  {
             String updateJson = SignatureUtil.toCanonicalJson(update, objectMapper);
             String updateSignature = EncryptUtil.hmacSha256(updateJson, SECRET_KEY);
-            mockMvc.perform(post("/order/update")
+            mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/update")
                             .contentType(MediaType.APPLICATION_JSON)
                             .header("X-Signature", updateSignature)
-                            .content(updateJson))
+                            .content(updateJson)).andReturn()))
                     .andExpect(jsonPath("$.code").value("0402")); // 0402
         } catch (Exception e) {
             log.error("❌ Caught expected exception: {}", String.valueOf(e.getCause()));
@@ -93,20 +94,20 @@ public class OrderRollBackTest {
         // Step 4: Verify order version is still 1
         String endpoint = "/order/getOne?orderId="+orderId+"&createTime=2025-05-25";
         String getOneSignature = EncryptUtil.hmacSha256(endpoint, SECRET_KEY);
-        String json = mockMvc.perform(get("/order/getOne")
+        String json = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/order/getOne")
                         .header("X-Signature", getOneSignature)
                         .param("orderId", orderId)
-                        .param("createTime", "2025-05-25"))
+                        .param("createTime", "2025-05-25")).andReturn()))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
         log.info("Order JSON: {}", json);
 
         String historyEndpoint = "/order/history?orderId="+orderId+"&createTime=2025-05-25";
         String historySignature = EncryptUtil.hmacSha256(historyEndpoint, SECRET_KEY);
-        MvcResult result = mockMvc.perform(get("/order/history")
+        MvcResult result = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/order/history")
                         .header("X-Signature", historySignature)
                         .param("orderId", orderId)
-                        .param("createTime", "2025-05-25"))
+                        .param("createTime", "2025-05-25")).andReturn()))
                 .andExpect(status().isOk())
                 .andReturn();
 
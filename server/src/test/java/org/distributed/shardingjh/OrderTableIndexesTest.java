@@ -0,0 +1,70 @@
+package org.distributed.shardingjh;
+
+import org.distributed.shardingjh.init.OrderTableIndexes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Indexes of order_table on an in-memory SQLite database: stale versions are dropped,
+ * indexes outside the idx_order_ prefix are left alone
+ * */
+public class OrderTableIndexesTest {
+
+    private Connection connection;
+
+    private Statement stmt;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        stmt = connection.createStatement();
+        stmt.execute("CREATE TABLE order_table (order_id TEXT, version INTEGER, create_time TEXT, member_id TEXT, " +
+                "expired_at TEXT, is_deleted INTEGER)");
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testEnsure_staleVersionDropped() throws Exception {
+        stmt.execute("CREATE INDEX idx_order_create_time_v0 ON order_table (create_time)");
+
+        OrderTableIndexes.ensure(stmt, "test");
+
+        Set<String> indexes = indexes();
+        assertFalse(indexes.contains("idx_order_create_time_v0"));
+        assertTrue(indexes.contains("idx_order_create_time_v1"));
+    }
+
+    @Test
+    public void testEnsure_nameMatchingOnlyAsLikePattern_kept() throws Exception {
+        // LIKE 'idx_order_%' would match it, _ being any character
+        stmt.execute("CREATE INDEX idxXorderXmanual ON order_table (member_id)");
+
+        OrderTableIndexes.ensure(stmt, "test");
+
+        assertTrue(indexes().contains("idxXorderXmanual"));
+    }
+
+    private Set<String> indexes() throws Exception {
+        Set<String> names = new HashSet<>();
+        try (ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = 'index'")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+}
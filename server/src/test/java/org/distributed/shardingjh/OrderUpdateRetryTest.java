@@ -0,0 +1,121 @@
+package org.distributed.shardingjh;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Query;
+import org.distributed.shardingjh.cache.NearCache;
+import org.distributed.shardingjh.cache.RedisEntityCache;
+import org.distributed.shardingjh.config.ShardMetrics;
+import org.distributed.shardingjh.model.OrderKey;
+import org.distributed.shardingjh.model.OrderTable;
+import org.distributed.shardingjh.service.Impl.OrderServiceImpl;
+import org.distributed.shardingjh.service.Impl.OrderVersionConflictException;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Manual transaction update: only a locked shard is retried, a version conflict fails on the first attempt
+ * */
+public class OrderUpdateRetryTest {
+
+    private static final String SHARD = "shard_order_2025";
+
+    private EntityManagerFactory emf;
+
+    private EntityTransaction tx;
+
+    private Query query;
+
+    private SimpleMeterRegistry registry;
+
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    public void setup() {
+        emf = mock(EntityManagerFactory.class);
+        tx = mock(EntityTransaction.class);
+        query = mock(Query.class, RETURNS_SELF);
+        EntityManager em = mock(EntityManager.class);
+        EntityManager newEm = mock(EntityManager.class);
+        when(em.getEntityManagerFactory()).thenReturn(emf);
+        when(emf.createEntityManager()).thenReturn(newEm);
+        when(newEm.getTransaction()).thenReturn(tx);
+        when(newEm.createQuery(anyString())).thenReturn(query);
+        when(tx.isActive()).thenReturn(true);
+
+        RangeStrategy rangeStrategy = mock(RangeStrategy.class);
+        when(rangeStrategy.resolveShard(any())).thenReturn(SHARD);
+        registry = new SimpleMeterRegistry();
+
+        orderService = new OrderServiceImpl();
+        ReflectionTestUtils.setField(orderService, "em", em);
+        ReflectionTestUtils.setField(orderService, "rangeStrategy", rangeStrategy);
+        ReflectionTestUtils.setField(orderService, "shardMetrics", new ShardMetrics(registry));
+        ReflectionTestUtils.setField(orderService, "entityCache", mock(RedisEntityCache.class));
+        ReflectionTestUtils.setField(orderService, "nearCache", mock(NearCache.class));
+    }
+
+    @Test
+    public void testVersionConflict_notRetried() {
+        when(query.executeUpdate()).thenReturn(0);
+
+        assertThrows(OrderVersionConflictException.class, () -> orderService.updateWithRetryAndRollback(order(1)));
+
+        verify(emf, times(1)).createEntityManager();
+        verify(tx).rollback();
+        assertEquals(1, attempts("conflict"));
+        assertEquals(1, registry.counter("order.mvcc.conflicts", "shard", SHARD).count());
+    }
+
+    @Test
+    public void testLocked_retriedUntilCommitted() {
+        when(query.executeUpdate()).thenReturn(1);
+        doThrow(new CannotAcquireLockException("database is locked"))
+                .doNothing()
+                .when(tx).commit();
+
+        orderService.updateWithRetryAndRollback(order(1));
+
+        verify(emf, times(2)).createEntityManager();
+        assertEquals(1, attempts("locked"));
+        assertEquals(1, attempts("committed"));
+    }
+
+    @Test
+    public void testOtherFailure_notRetried() {
+        when(query.executeUpdate()).thenThrow(new IllegalArgumentException("bad update"));
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateWithRetryAndRollback(order(1)));
+
+        verify(emf, times(1)).createEntityManager();
+        assertEquals(1, attempts("failed"));
+    }
+
+    private double attempts(String outcome) {
+        return registry.find("order.update.attempts").tag("outcome", outcome).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private static OrderTable order(int version) {
+        OrderTable order = new OrderTable();
+        order.setId(new OrderKey("order-1", version));
+        order.setCreateTime(LocalDateTime.of(2025, 5, 25, 10, 0));
+        order.setMemberId("user1");
+        order.setIsPaid(1);
+        order.setPrice(100);
+        return order;
+    }
+}
@@ -0,0 +1,136 @@
+package org.distributed.shardingjh;
+
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.Resource;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.distributed.shardingjh.config.PassthroughFilter;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * router.passthrough.enabled: a request owned by another node reaches it with the same bytes,
+ * its status and body come back unchanged. An owner that does not answer gets the client a 504.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"router.passthrough.enabled=true", "router.passthrough.timeout-ms=1000"})
+public class PassthroughFilterTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Resource
+    private FingerTable fingerTable;
+
+    private HttpServer owner;
+
+    private final Map<Integer, String> savedFinger = new TreeMap<>();
+
+    private final AtomicReference<String> received = new AtomicReference<>();
+
+    private final AtomicReference<String> receivedSignature = new AtomicReference<>();
+
+    private final AtomicReference<String> receivedPassthrough = new AtomicReference<>();
+
+    private final CountDownLatch releaseHung = new CountDownLatch(1);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        owner = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        owner.createContext("/", exchange -> {
+            received.set(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            receivedSignature.set(exchange.getRequestHeaders().getFirst("X-Signature"));
+            receivedPassthrough.set(exchange.getRequestHeaders().getFirst(PassthroughFilter.PASSTHROUGH_HEADER));
+            if (exchange.getRequestURI().getPath().endsWith("hung")) {
+                try {
+                    releaseHung.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            boolean fail = exchange.getRequestURI().getPath().endsWith("broken");
+            byte[] body = (fail ? "{\"code\":\"0401\"}" : "{\"code\":\"0000\",\"data\":{\"from\":\"owner\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? 500 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        owner.start();
+        savedFinger.putAll(fingerTable.finger);
+        fingerTable.finger.clear();
+        fingerTable.finger.put(ShardConst.FINGER_MAX_RANGE - 1, "http://127.0.0.1:" + owner.getAddress().getPort());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        releaseHung.countDown();
+        owner.stop(0);
+        fingerTable.finger.clear();
+        fingerTable.finger.putAll(savedFinger);
+    }
+
+    @Test
+    public void testPost_bodyBytesAndAnswerUnchanged() throws Exception {
+        // field order and spacing a re-serialization would not keep
+        String body = "{ \"name\" : \"pass\",\n  \"id\" : \"pt-1\" }";
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user/save"))
+                .header("Content-Type", "application/json")
+                .header("X-Signature", "client-signature")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"code\":\"0000\",\"data\":{\"from\":\"owner\"}}", response.body());
+        assertEquals("POST /user/save " + body, received.get());
+        assertEquals("client-signature", receivedSignature.get());
+        assertNotNull(receivedPassthrough.get());
+    }
+
+    @Test
+    public void testGet_errorStatusCopied() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user/get/broken"))
+                .header("X-Signature", "client-signature")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(500, response.statusCode());
+        assertEquals("{\"code\":\"0401\"}", response.body());
+        assertEquals("GET /user/get/broken ", received.get());
+    }
+
+    @Test
+    public void testGet_hungOwnerTimesOut() throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user/get/hung"))
+                .header("X-Signature", "client-signature")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(504, response.statusCode());
+        assertTrue(response.body().contains("0002"));
+        // answered by the timeout, not by the read timeout of the inter-node client
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 4000);
+    }
+}
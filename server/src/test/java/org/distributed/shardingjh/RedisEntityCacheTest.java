@@ -0,0 +1,120 @@
+package org.distributed.shardingjh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.distributed.shardingjh.cache.RedisEntityCache;
+import org.distributed.shardingjh.model.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Read-through, negative caching, eviction and fail-open of the Redis cache,
+ * against an in-memory stand-in of the Redis value operations.
+ * */
+public class RedisEntityCacheTest {
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    private final Map<String, Duration> ttls = new ConcurrentHashMap<>();
+
+    private StringRedisTemplate redisTemplate;
+
+    private RedisEntityCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenAnswer(call -> redis.get(call.<String>getArgument(0)));
+        doAnswer(call -> {
+            redis.put(call.getArgument(0), call.getArgument(1));
+            ttls.put(call.getArgument(0), call.getArgument(2));
+            return null;
+        }).when(ops).set(anyString(), anyString(), any(Duration.class));
+        when(redisTemplate.delete(anyCollection())).thenAnswer(call -> {
+            Collection<String> keys = call.getArgument(0);
+            keys.forEach(redis::remove);
+            return (long) keys.size();
+        });
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        cache = new RedisEntityCache(redisTemplate, objectMapper, true, 300, 30);
+    }
+
+    private static Member member(String id) {
+        Member member = new Member();
+        member.setId(id);
+        member.setName("cached");
+        return member;
+    }
+
+    @Test
+    public void testGetOrLoad_secondReadServedFromRedis() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Member member = cache.getOrLoad("USER_m1", Member.class, () -> {
+                loads.incrementAndGet();
+                return member("m1");
+            });
+            assertEquals("m1", member.getId());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(Duration.ofSeconds(300), ttls.get("USER_m1"));
+
+        cache.evict("USER_m1");
+        cache.getOrLoad("USER_m1", Member.class, () -> {
+            loads.incrementAndGet();
+            return member("m1");
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetOrLoad_missCachedWithNegativeTtl() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.getOrLoad("USER_unknown", Member.class, () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.getOrLoad("USER_unknown", Member.class, () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, loads.get());
+        assertEquals(Duration.ofSeconds(30), ttls.get("USER_unknown"));
+
+        // a save replaces the cached miss
+        cache.put("USER_unknown", member("unknown"));
+        assertEquals("unknown", cache.getOrLoad("USER_unknown", Member.class, () -> null).getId());
+    }
+
+    @Test
+    public void testGetOrLoad_redisDown_readsDatabase() {
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        Member member = cache.getOrLoad("USER_m2", Member.class, () -> member("m2"));
+        assertEquals("m2", member.getId());
+        cache.put("USER_m2", member);
+        cache.evict("USER_m2");
+    }
+}
@@ -0,0 +1,98 @@
+package org.distributed.shardingjh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.distributed.shardingjh.config.RequestTraceFilter;
+import org.distributed.shardingjh.config.RoutingObservationConvention;
+import org.distributed.shardingjh.context.RequestTrace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sampled requests get a trace with their shards, route and timings, the others nothing
+ * */
+public class RequestTraceTest {
+
+    @AfterEach
+    public void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static RequestTraceFilter filter(double sampleRate) {
+        return new RequestTraceFilter(new ObjectMapper(), new SimpleMeterRegistry(), sampleRate, false, 16);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/order/save");
+        request.addHeader("X-Request-Id", "req-1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+
+    @Test
+    public void testSampledRequest() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(1).doFilter(request, response, (req, res) -> {
+            RequestTrace.shard("shard_order_2025");
+            RequestTrace.shard("shard_order_2025");
+            RoutingObservationConvention.markRouted((HttpServletRequest) req, "forwarded", "http://127.0.0.1:8082");
+            ((HttpServletResponse) res).setStatus(201);
+        });
+
+        RequestTrace trace = (RequestTrace) request.getAttribute(RequestTrace.ATTRIBUTE);
+        Map<String, Object> fields = trace.fields();
+        assertEquals("req-1", fields.get("id"));
+        assertEquals("/order/save", fields.get("uri"));
+        assertEquals(201, fields.get("status"));
+        assertEquals("forwarded", fields.get("route"));
+        assertEquals("127.0.0.1:8082", fields.get("target"));
+        assertEquals(List.of("shard_order_2025"), fields.get("shards"));
+        List<?> events = (List<?>) fields.get("events");
+        assertEquals(2, events.size());
+        assertEquals("forwarded", ((Map<?, ?>) events.get(1)).get("name"));
+    }
+
+    @Test
+    public void testNotSampled() throws Exception {
+        MockHttpServletRequest request = request();
+
+        filter(0).doFilter(request, new MockHttpServletResponse(), (req, res) -> RequestTrace.shard("shard_common_1"));
+
+        assertNull(request.getAttribute(RequestTrace.ATTRIBUTE));
+        assertNull(RequestTrace.current());
+    }
+
+    @Test
+    public void testAsyncRequestFinishesOnComplete() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(1).doFilter(request, response, (req, res) -> req.startAsync());
+        RequestTrace trace = (RequestTrace) request.getAttribute(RequestTrace.ATTRIBUTE);
+        assertEquals(0, trace.fields().get("status"));
+
+        // the owner answered on another thread
+        trace.addEvent("answer", "127.0.0.1:8082 200");
+        response.setStatus(200);
+        request.getAsyncContext().complete();
+
+        Map<String, Object> fields = trace.fields();
+        assertEquals(200, fields.get("status"));
+        assertEquals("local", fields.get("route"));
+        assertEquals(1, ((List<?>) fields.get("events")).size());
+    }
+}
@@ -0,0 +1,91 @@
+package org.distributed.shardingjh;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.distributed.shardingjh.config.ServerRouter;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.util.EncryptUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * router.mode=redirect: a request for an id owned by another node gets a 307 to the owner,
+ * and the finger table can be revalidated with its ETag.
+ * */
+@Slf4j
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RouterRedirectTest {
+
+    private static final String OWNER_URL = "http://owner.example:9000";
+
+    @Resource
+    private MockMvc mockMvc;
+
+    @Resource
+    private ServerRouter serverRouter;
+
+    @Resource
+    private FingerTable fingerTable;
+
+    @Value("${sha256.secret.key}")
+    private String SECRET_KEY;
+
+    private final Map<Integer, String> savedFinger = new TreeMap<>();
+
+    @BeforeEach
+    public void setup() {
+        savedFinger.putAll(fingerTable.finger);
+        fingerTable.finger.clear();
+        fingerTable.finger.put(ShardConst.FINGER_MAX_RANGE - 1, OWNER_URL);
+        serverRouter.setRouterMode("redirect");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        serverRouter.setRouterMode("proxy");
+        fingerTable.finger.clear();
+        fingerTable.finger.putAll(savedFinger);
+    }
+
+    @Test
+    public void testGetMember_notOwner_redirectsToOwner() throws Exception {
+        String path = "/user/get/redirect-member";
+        mockMvc.perform(get(path).header("X-Signature", EncryptUtil.hmacSha256(path, SECRET_KEY)))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string("Location", OWNER_URL + path))
+                .andExpect(header().string("X-Owner-Url", OWNER_URL))
+                .andExpect(header().string("X-Finger-Version", fingerTable.version()))
+                .andExpect(jsonPath("$.code").value("0003"))
+                .andExpect(jsonPath("$.data.ownerUrl").value(OWNER_URL));
+    }
+
+    @Test
+    public void testFingerTable_unchangedRing_notModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/gossip/finger-table"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(fingerTable.version()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/gossip/finger-table").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        fingerTable.finger.put(64, "http://other.example:9001");
+        mockMvc.perform(get("/api/gossip/finger-table").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+}
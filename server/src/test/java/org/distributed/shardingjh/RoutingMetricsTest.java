@@ -0,0 +1,121 @@
+package org.distributed.shardingjh;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.distributed.shardingjh.config.RoutingObservationConvention;
+import org.distributed.shardingjh.config.ShardMetrics;
+import org.distributed.shardingjh.config.ShardRoutingDataSource;
+import org.distributed.shardingjh.context.ShardContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Route / target tags of http.server.requests and the shard meters
+ * */
+public class RoutingMetricsTest {
+
+    private SimpleMeterRegistry registry;
+
+    private ShardMetrics shardMetrics;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        shardMetrics = new ShardMetrics(registry);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ShardContext.clear();
+    }
+
+    private static String tag(KeyValues keyValues, String key) {
+        return keyValues.stream().filter(kv -> kv.getKey().equals(key)).map(KeyValue::getValue).findFirst().orElse(null);
+    }
+
+    @Test
+    public void testRouteTags() {
+        RoutingObservationConvention convention = new RoutingObservationConvention();
+
+        MockHttpServletRequest local = new MockHttpServletRequest("GET", "/user/get/m1");
+        KeyValues tags = convention.getLowCardinalityKeyValues(new ServerRequestObservationContext(local, new MockHttpServletResponse()));
+        assertEquals("local", tag(tags, "route"));
+        assertEquals("local", tag(tags, "target"));
+
+        MockHttpServletRequest forwarded = new MockHttpServletRequest("GET", "/user/get/m2");
+        RoutingObservationConvention.markRouted(forwarded, "forwarded", "http://127.0.0.1:8082");
+        tags = convention.getLowCardinalityKeyValues(new ServerRequestObservationContext(forwarded, new MockHttpServletResponse()));
+        assertEquals("forwarded", tag(tags, "route"));
+        assertEquals("127.0.0.1:8082", tag(tags, "target"));
+        assertEquals("GET", tag(tags, "method"));
+
+        // sub-batches of one batch sent to two nodes
+        MockHttpServletRequest batch = new MockHttpServletRequest("POST", "/order/saveBatch");
+        RoutingObservationConvention.markRouted(batch, "forwarded", "http://127.0.0.1:8082");
+        RoutingObservationConvention.markRouted(batch, "forwarded", "http://127.0.0.1:8082");
+        assertEquals("127.0.0.1:8082", batch.getAttribute(RoutingObservationConvention.TARGET_ATTRIBUTE));
+        RoutingObservationConvention.markRouted(batch, "forwarded", "http://127.0.0.1:8083");
+        assertEquals("multiple", batch.getAttribute(RoutingObservationConvention.TARGET_ATTRIBUTE));
+    }
+
+    @Test
+    public void testShardRouted() throws Exception {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shardMetrics);
+        DataSource shard = mock(DataSource.class);
+        routing.setTargetDataSources(Map.of("shard_order_2025", shard, "shard_order_2025_read", shard));
+        routing.setDefaultTargetDataSource(shard);
+        routing.afterPropertiesSet();
+
+        ShardContext.setCurrentShard("shard_order_2025");
+        routing.getConnection();
+        ShardContext.setCurrentShardForRead("shard_order_2025");
+        routing.getConnection();
+        routing.getConnection();
+        ShardContext.clear();
+        routing.getConnection();
+
+        assertEquals(1, registry.get("shard.routed").tags("shard", "shard_order_2025", "access", "write").counter().count());
+        assertEquals(2, registry.get("shard.routed").tags("shard", "shard_order_2025", "access", "read").counter().count());
+        assertEquals(1, registry.get("shard.routed").tags("shard", "default", "access", "write").counter().count());
+    }
+
+    @Test
+    public void testSqliteBusy() {
+        CannotAcquireLockException busy = new CannotAcquireLockException("could not execute statement",
+                new SQLiteException("[SQLITE_BUSY] The database file is locked", SQLiteErrorCode.SQLITE_BUSY_SNAPSHOT));
+        assertTrue(shardMetrics.sqliteBusy("shard_order_2025", busy));
+        assertTrue(shardMetrics.sqliteBusy("shard_order_2025",
+                new RuntimeException(new SQLiteException("locked", SQLiteErrorCode.SQLITE_LOCKED))));
+        assertFalse(shardMetrics.sqliteBusy("shard_order_2025",
+                new RuntimeException(new SQLiteException("constraint", SQLiteErrorCode.SQLITE_CONSTRAINT_PRIMARYKEY))));
+        assertFalse(shardMetrics.sqliteBusy("shard_order_2025", new IllegalStateException("Version mismatch")));
+
+        assertEquals(1, registry.get("sqlite.busy").tags("shard", "shard_order_2025", "code", "SQLITE_BUSY").counter().count());
+        assertEquals(1, registry.get("sqlite.busy").tags("shard", "shard_order_2025", "code", "SQLITE_LOCKED").counter().count());
+    }
+
+    @Test
+    public void testUpdateAttempts() {
+        shardMetrics.updateAttempt("shard_order_2025", 1, "locked");
+        shardMetrics.updateAttempt("shard_order_2025", 2, "committed");
+        shardMetrics.mvccConflict("shard_order_2025");
+
+        assertEquals(1, registry.get("order.update.attempts").tags("attempt", "1", "outcome", "locked").counter().count());
+        assertEquals(1, registry.get("order.update.attempts").tags("attempt", "2", "outcome", "committed").counter().count());
+        assertEquals(1, registry.get("order.mvcc.conflicts").tags("shard", "shard_order_2025").counter().count());
+    }
+}
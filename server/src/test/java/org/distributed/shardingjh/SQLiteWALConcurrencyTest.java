@@ -20,6 +20,7 @@ import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -62,10 +63,10 @@ public class SQLiteWALConcurrencyTest {
 
         String bodyJson = SignatureUtil.toCanonicalJson(order, objectMapper);
         String signature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
-        mockMvc.perform(post("/order/save")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/save")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Signature", signature)
-                        .content(bodyJson))
+                        .content(bodyJson)).andReturn()))
                 .andExpect(status().isOk());
     }
 
@@ -84,10 +85,10 @@ public class SQLiteWALConcurrencyTest {
 
                 String updateJson = SignatureUtil.toCanonicalJson(update, objectMapper);
                 String signature = EncryptUtil.hmacSha256(updateJson, SECRET_KEY);
-                mockMvc.perform(post("/order/update")
+                mockMvc.perform(asyncDispatch(mockMvc.perform(post("/order/update")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .header("X-Signature", signature)
-                                .content(updateJson))
+                                .content(updateJson)).andReturn()))
                         .andExpect(status().isOk());
             } catch (Exception ignored) {}
         });
@@ -97,10 +98,10 @@ public class SQLiteWALConcurrencyTest {
             try {
                 String url = "/order/getOne?orderId="+orderId+"&createTime=2025-05-25";
                 String signature = EncryptUtil.hmacSha256(url, SECRET_KEY);
-                return mockMvc.perform(get("/order/getOne")
+                return mockMvc.perform(asyncDispatch(mockMvc.perform(get("/order/getOne")
                                 .header("X-Signature", signature)
                                 .param("orderId", orderId)
-                                .param("createTime", "2025-05-25"))
+                                .param("createTime", "2025-05-25")).andReturn()))
                         .andExpect(status().isOk())
                         .andReturn().getResponse().getContentAsString();
             } catch (Exception e) {
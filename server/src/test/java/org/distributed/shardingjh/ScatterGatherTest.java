@@ -0,0 +1,105 @@
+package org.distributed.shardingjh;
+
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.p2p.ScatterGather;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for ScatterGather.
+ */
+@Slf4j
+public class ScatterGatherTest {
+
+    @Test
+    public void testGather_runsSourcesConcurrently() {
+        ScatterGather scatterGather = new ScatterGather(4, 2000);
+        Map<String, Callable<List<String>>> sources = new LinkedHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            String name = "node" + i;
+            sources.put(name, () -> {
+                Thread.sleep(300);
+                return List.of(name);
+            });
+        }
+
+        long start = System.nanoTime();
+        ScatterGather.Result<String> result = scatterGather.gather(sources);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        scatterGather.shutdown();
+
+        log.info("Gathered {} in {} ms", result.getItems(), elapsedMs);
+        assertEquals(List.of("node0", "node1", "node2", "node3"), result.getItems());
+        assertFalse(result.isPartial());
+        assertTrue(elapsedMs < 1000, "Latency should be the slowest source, not the sum: " + elapsedMs + " ms");
+    }
+
+    @Test
+    public void testGather_slowOrFailedSourcesMarkResultPartial() {
+        ScatterGather scatterGather = new ScatterGather(4, 200);
+        Map<String, Callable<List<String>>> sources = new LinkedHashMap<>();
+        sources.put("fast", () -> List.of("a", "b"));
+        sources.put("slow", () -> {
+            Thread.sleep(5000);
+            return List.of("c");
+        });
+        sources.put("down", () -> null);
+        sources.put("broken", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        ScatterGather.Result<String> result = scatterGather.gather(sources);
+        scatterGather.shutdown();
+
+        assertEquals(List.of("a", "b"), result.getItems());
+        assertTrue(result.isPartial());
+        assertEquals(List.of("slow", "down", "broken"), result.getMissing());
+    }
+
+    @Test
+    public void testNestedGather_ownPoolWithinOuterDeadline() {
+        // one thread: a nested gather on the same pool could never start
+        ScatterGather scatterGather = new ScatterGather(1, 1000);
+        Map<String, Callable<List<String>>> sources = new LinkedHashMap<>();
+        sources.put("local", () -> {
+            Thread.sleep(600);
+            Map<String, Callable<List<String>>> shards = new LinkedHashMap<>();
+            shards.put("shard-1", () -> List.of("a"));
+            shards.put("shard-2", () -> {
+                Thread.sleep(5000);
+                return List.of("b");
+            });
+            ScatterGather.Result<String> inner = scatterGather.gather(shards);
+            return inner.isPartial() ? List.of("partial:" + inner.getItems()) : inner.getItems();
+        });
+
+        long start = System.nanoTime();
+        ScatterGather.Result<String> result = scatterGather.gather(sources);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        scatterGather.shutdown();
+
+        // the slow shard is given up at the outer deadline, the local source still answers in time
+        assertEquals(List.of("partial:[a]"), result.getItems());
+        assertFalse(result.isPartial());
+        assertTrue(elapsedMs < 1500, "Nested gather should end with the outer deadline: " + elapsedMs + " ms");
+    }
+
+    @Test
+    public void testRemainingMillis_onlyInsideASource() throws Exception {
+        assertEquals(Long.MAX_VALUE, ScatterGather.remainingMillis());
+        assertEquals(0, ScatterGather.remainingStatementSeconds());
+
+        ScatterGather scatterGather = new ScatterGather(1, 2000);
+        Map<String, Callable<List<Long>>> sources = Map.of("node", () -> List.of(ScatterGather.remainingMillis()));
+        long remaining = scatterGather.gather(sources).getItems().get(0);
+        scatterGather.shutdown();
+
+        assertTrue(remaining > 0 && remaining <= 2000, "remaining: " + remaining);
+    }
+}
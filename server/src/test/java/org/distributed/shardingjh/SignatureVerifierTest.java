@@ -0,0 +1,156 @@
+package org.distributed.shardingjh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.controller.usercontroller.OrderBatchRequest;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.p2p.HopToken;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.util.EncryptUtil;
+import org.distributed.shardingjh.util.SignatureUtil;
+import org.distributed.shardingjh.util.SignatureVerifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Canonical JSON is unchanged (same bytes as sorting through nested TreeMaps), signatures made by clients verify,
+ * anything else does not. The timing test is opt-in:
+ * mvn test -Dtest=SignatureVerifierTest -Dbenchmark=true
+ * */
+@Slf4j
+public class SignatureVerifierTest {
+
+    private static final String SECRET_KEY = "myShardingJHSecretKey";
+
+    private ObjectMapper objectMapper;
+
+    private SignatureVerifier verifier;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        verifier = new SignatureVerifier(SECRET_KEY, objectMapper, new HopToken(SECRET_KEY, "http://127.0.0.1:8081", new FingerTable(), 5000));
+    }
+
+    private static RequestOrder order(String memberId) {
+        RequestOrder order = new RequestOrder();
+        order.setCreateTime(LocalDateTime.of(2024, 5, 1, 10, 30, 0, 123_000_000));
+        order.setMemberId(memberId);
+        order.setPrice(120);
+        order.setIsPaid(0);
+        order.generateOrderId();
+        return order;
+    }
+
+    private static OrderBatchRequest batch() {
+        OrderBatchRequest batch = new OrderBatchRequest();
+        batch.setOrders(List.of(order("m1"), order("m2")));
+        return batch;
+    }
+
+    /**
+     * The former canonical form: convert to maps, sort every level with TreeMaps, serialize
+     * */
+    private String treeMapCanonicalJson(Object body) throws Exception {
+        Map<String, Object> map = objectMapper.convertValue(body, new TypeReference<>() {});
+        return objectMapper.writeValueAsString(sort(map));
+    }
+
+    private static Object sort(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            TreeMap<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(k.toString(), sort(v)));
+            return sorted;
+        }
+        if (value instanceof Iterable<?> items) {
+            List<Object> list = new ArrayList<>();
+            items.forEach(item -> list.add(sort(item)));
+            return list;
+        }
+        return value;
+    }
+
+    private static String oldHmacSha256(String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET_KEY.getBytes(), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(message.getBytes()));
+    }
+
+    @Test
+    public void testCanonicalJson_sameAsTreeMapSort() throws Exception {
+        OrderBatchRequest batch = batch();
+        Map<String, Object> nested = Map.of("b", 1, "a", Map.of("z", List.of(Map.of("y", 1, "x", 2)), "Y", 2));
+
+        assertEquals(treeMapCanonicalJson(batch), SignatureUtil.toCanonicalJson(batch, objectMapper));
+        assertEquals(treeMapCanonicalJson(nested), SignatureUtil.toCanonicalJson(nested, objectMapper));
+        assertEquals(oldHmacSha256(treeMapCanonicalJson(batch)), EncryptUtil.hmacSha256(SignatureUtil.toCanonicalJson(batch, objectMapper), SECRET_KEY));
+    }
+
+    @Test
+    public void testVerifyBody() throws Exception {
+        OrderBatchRequest batch = batch();
+        String signature = EncryptUtil.hmacSha256(SignatureUtil.toCanonicalJson(batch, objectMapper), SECRET_KEY);
+
+        assertTrue(verifier.verifyBody(batch, signature));
+        assertEquals(signature, verifier.signBody(batch));
+
+        assertFalse(verifier.verifyBody(batch, EncryptUtil.hmacSha256(SignatureUtil.toCanonicalJson(batch, objectMapper), "otherKey")));
+        assertFalse(verifier.verifyBody(batch, null));
+        assertFalse(verifier.verifyBody(batch, "not base64 !"));
+        batch.getOrders().get(0).setPrice(1);
+        assertFalse(verifier.verifyBody(batch, signature));
+    }
+
+    @Test
+    public void testVerifyPath() {
+        String path = "/order/getOne?orderId=o-1&createTime=2024-05-01";
+        String signature = EncryptUtil.hmacSha256(path, SECRET_KEY);
+
+        assertTrue(verifier.verifyPath(path, signature));
+        assertEquals(signature, verifier.signPath(path));
+        assertFalse(verifier.verifyPath("/order/getOne?orderId=o-2&createTime=2024-05-01", signature));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkVerifyBody() throws Exception {
+        RequestOrder order = order("m1");
+        String signature = verifier.signBody(order);
+        int warmup = 50_000;
+        int iterations = 200_000;
+
+        for (int i = 0; i < warmup; i++) {
+            verifier.verifyBody(order, signature);
+            oldHmacSha256(treeMapCanonicalJson(order)).equals(signature);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertTrue(verifier.verifyBody(order, signature));
+        }
+        long verifierNs = (System.nanoTime() - start) / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertEquals(signature, oldHmacSha256(treeMapCanonicalJson(order)));
+        }
+        long treeMapNs = (System.nanoTime() - start) / iterations;
+        log.info("Signature check of one order: {} ns (per thread Mac, streaming canonical JSON) vs {} ns (new Mac, TreeMap canonical JSON)",
+                verifierNs, treeMapNs);
+    }
+}
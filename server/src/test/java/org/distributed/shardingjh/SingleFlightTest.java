@@ -0,0 +1,125 @@
+package org.distributed.shardingjh;
+
+import org.distributed.shardingjh.util.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent identical reads share one lookup, a finished lookup is not reused.
+ * Joiners are released whatever the lookup throws, and do not wait on a stuck lookup forever.
+ * */
+public class SingleFlightTest {
+
+    @Test
+    public void testCall_concurrentSameKey_oneLookup() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+        AtomicInteger lookups = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 10;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> singleFlight.call("hot", () -> {
+                    lookups.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {}
+                    return "value";
+                })));
+            }
+            // let every caller reach the in-flight lookup
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, lookups.get());
+
+            // done, the next call looks up again
+            assertEquals("again", singleFlight.call("hot", () -> "again"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecute_failureSharedAndNotKept() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        AtomicInteger lookups = new AtomicInteger();
+
+        CompletableFuture<String> first = singleFlight.execute("key", () -> {
+            lookups.incrementAndGet();
+            return lookup;
+        });
+        CompletableFuture<String> second = singleFlight.execute("key", () -> {
+            lookups.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        lookup.completeExceptionally(new IllegalStateException("peer down"));
+
+        assertEquals(1, lookups.get());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals("ok", singleFlight.execute("key", () -> CompletableFuture.completedFuture("ok")).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCall_errorReleasesJoiners() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> owner = pool.submit(() -> singleFlight.call("key", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {}
+                throw new NoClassDefFoundError("org/example/Missing");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> joiner = pool.submit(() -> singleFlight.call("key", () -> "not run"));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertInstanceOf(NoClassDefFoundError.class, assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS)).getCause());
+            assertInstanceOf(NoClassDefFoundError.class, assertThrows(ExecutionException.class, () -> joiner.get(5, TimeUnit.SECONDS)).getCause());
+            assertEquals("next", singleFlight.call("key", () -> "next"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCall_stuckLookup_joinerLooksUpAlone() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> singleFlight.call("key", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {}
+                return "slow";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals("own", singleFlight.call("key", () -> "own"));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
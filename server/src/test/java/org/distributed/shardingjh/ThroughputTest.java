@@ -15,6 +15,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -57,10 +58,10 @@ public class ThroughputTest {
                         member.setName("User-" + memberId);
                         String bodyJson = SignatureUtil.toCanonicalJson(member, objectMapper);
                         String signature = EncryptUtil.hmacSha256(bodyJson, SECRET_KEY);
-                        mockMvc.perform(MockMvcRequestBuilders.post("/user/save")
+                        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.post("/user/save")
                                         .contentType(MediaType.APPLICATION_JSON)
                                         .content(bodyJson)
-                                        .header("X-Signature", signature))
+                                        .header("X-Signature", signature)).andReturn()))
                                         .andExpect(status().isOk());
                     } catch (Exception e) {
                         // Optionally log or collect errors
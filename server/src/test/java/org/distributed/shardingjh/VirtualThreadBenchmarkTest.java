@@ -0,0 +1,210 @@
+package org.distributed.shardingjh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.distributed.shardingjh.common.constant.ShardConst;
+import org.distributed.shardingjh.context.ShardContext;
+import org.distributed.shardingjh.p2p.FingerTable;
+import org.distributed.shardingjh.repository.order.RequestOrder;
+import org.distributed.shardingjh.sharding.Impl.RangeStrategy;
+import org.distributed.shardingjh.util.EncryptUtil;
+import org.distributed.shardingjh.util.SignatureUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of /order/save (local write) and /user/get (forwarded to a peer answering in PEER_LATENCY_MS)
+ * over real HTTP, with CONCURRENCY requests in flight.
+ * Opt-in, run once per thread mode and compare the logged numbers:
+ * mvn test -Dtest=VirtualThreadBenchmarkTest -Dbenchmark=true -Dspring.profiles.active=server1
+ * mvn test -Dtest=VirtualThreadBenchmarkTest -Dbenchmark=true -Dspring.profiles.active=server1,virtual (Java 21+)
+ * */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class VirtualThreadBenchmarkTest {
+
+    private static final int CONCURRENCY = 256;
+
+    private static final int REQUESTS = 4000;
+
+    private static final long PEER_LATENCY_MS = 20;
+
+    private static final String MEMBER_PREFIX = "benchmark-";
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 12, 1, 0, 0);
+
+    @LocalServerPort
+    private int port;
+
+    @Resource
+    private FingerTable fingerTable;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private RangeStrategy rangeStrategy;
+
+    @Resource(name = "orderRoutingJdbcTemplate")
+    private JdbcTemplate orderJdbcTemplate;
+
+    @Resource
+    private Environment environment;
+
+    @Value("${sha256.secret.key}")
+    private String SECRET_KEY;
+
+    @Value("${router.server-url}")
+    private String CURRENT_NODE_URL;
+
+    private HttpServer peer;
+
+    private ExecutorService peerExecutor;
+
+    private final Map<Integer, String> savedFinger = new TreeMap<>();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        peerExecutor = Executors.newCachedThreadPool();
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        peer.setExecutor(peerExecutor);
+        peer.createContext("/user/get/", exchange -> {
+            try {
+                Thread.sleep(PEER_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String id = exchange.getRequestURI().getPath().substring("/user/get/".length());
+            byte[] body = ("{\"code\":\"0000\",\"message\":\"Success\",\"data\":{\"id\":\"" + id + "\"}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        peer.start();
+        savedFinger.putAll(fingerTable.finger);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        fingerTable.finger.clear();
+        fingerTable.finger.putAll(savedFinger);
+        peer.stop(0);
+        peerExecutor.shutdownNow();
+        ShardContext.setCurrentShard(rangeStrategy.resolveShard(BASE_TIME));
+        try {
+            orderJdbcTemplate.update("DELETE FROM order_table WHERE member_id LIKE ?", MEMBER_PREFIX + "%");
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    @Test
+    public void benchmarkSaveOrderAndForwardedGet() throws Exception {
+        String mode = Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform";
+        String baseUrl = "http://127.0.0.1:" + port;
+
+        // every id is owned by this node
+        fingerTable.finger.clear();
+        fingerTable.finger.put(ShardConst.FINGER_MAX_RANGE - 1, CURRENT_NODE_URL);
+        double saveThroughput = run("/order/save", i -> saveOrderRequest(baseUrl, i));
+
+        // every id is owned by the peer
+        fingerTable.finger.clear();
+        fingerTable.finger.put(ShardConst.FINGER_MAX_RANGE - 1, "http://127.0.0.1:" + peer.getAddress().getPort());
+        double getThroughput = run("/user/get forwarded", i -> getMemberRequest(baseUrl, i));
+
+        log.info("[Benchmark] {} threads: /order/save {} req/s, forwarded /user/get {} req/s "
+                        + "({} requests, {} in flight, peer latency {} ms)",
+                mode, String.format("%.0f", saveThroughput), String.format("%.0f", getThroughput),
+                REQUESTS, CONCURRENCY, PEER_LATENCY_MS);
+        assertTrue(saveThroughput > 0);
+        assertTrue(getThroughput > 0);
+    }
+
+    private double run(String name, IntFunction<HttpRequest> requests) throws Exception {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(8)).build();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[REQUESTS];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            inFlight.acquire();
+            futures[i] = client.sendAsync(requests.apply(i), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, e) -> {
+                        inFlight.release();
+                        if (e != null || response.statusCode() != 200 || !response.body().contains("\"0000\"")) {
+                            if (failed.incrementAndGet() == 1) {
+                                log.warn("[Benchmark] {} failed: {}", name, e != null ? e.toString() : response.body());
+                            }
+                        }
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(e -> null).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("[Benchmark] {}: {} requests in {} s, {} failed", name, REQUESTS, String.format("%.2f", seconds), failed.get());
+        assertEquals(0, failed.get(), name + " requests failed");
+        return REQUESTS / seconds;
+    }
+
+    private HttpRequest saveOrderRequest(String baseUrl, int i) {
+        try {
+            RequestOrder order = new RequestOrder();
+            order.setMemberId(MEMBER_PREFIX + i);
+            order.setCreateTime(BASE_TIME.plusSeconds(i));
+            order.setIsPaid(0);
+            order.setPrice(i);
+            order.generateOrderId();
+            String body = SignatureUtil.toCanonicalJson(order, objectMapper);
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/order/save"))
+                    .header("Content-Type", "application/json")
+                    .header("X-Signature", EncryptUtil.hmacSha256(body, SECRET_KEY))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest getMemberRequest(String baseUrl, int i) {
+        String path = "/user/get/" + MEMBER_PREFIX + i;
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("X-Signature", EncryptUtil.hmacSha256(path, SECRET_KEY))
+                .GET()
+                .build();
+    }
+}
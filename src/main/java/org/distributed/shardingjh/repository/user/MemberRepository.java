@@ -1,13 +0,0 @@
-package org.distributed.shardingjh.repository.user;
-
-import org.distributed.shardingjh.model.Member;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.Optional;
-
-@Repository
-public interface MemberRepository extends JpaRepository<Member, String> {
-
-    Optional<Member> findByName(String userName);
-}